@@ -1,14 +1,16 @@
 package com.myblog.config;
 
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.PropertySource;
+import org.springframework.core.io.ClassPathResource;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.datasource.DataSourceTransactionManager;
-import org.springframework.jdbc.datasource.DriverManagerDataSource;
-import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
-import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.jdbc.datasource.init.DatabasePopulatorUtils;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
 import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
 
@@ -31,12 +33,52 @@ public class DatabaseConfig {
     @Value("${db.driver}")
     private String dbDriver;
 
-    @Bean
-    public DataSource dataSource() {
-        return new EmbeddedDatabaseBuilder()
-            .setType(EmbeddedDatabaseType.H2)
-            .addScript("classpath:schema.sql")
-            .build();
+    @Value("${db.pool.maximum-size:10}")
+    private int maximumPoolSize;
+
+    @Value("${db.pool.minimum-idle:2}")
+    private int minimumIdle;
+
+    @Value("${db.pool.connection-timeout-ms:3000}")
+    private long connectionTimeoutMillis;
+
+    @Value("${db.pool.idle-timeout-ms:600000}")
+    private long idleTimeoutMillis;
+
+    @Value("${db.pool.max-lifetime-ms:1800000}")
+    private long maxLifetimeMillis;
+
+    @Value("${db.pool.leak-detection-threshold-ms:0}")
+    private long leakDetectionThresholdMillis;
+
+    @Value("${db.pool.query-cache-size:64}")
+    private int queryCacheSize;
+
+    @Bean(destroyMethod = "close")
+    public HikariDataSource dataSource() {
+        HikariConfig config = new HikariConfig();
+        config.setDriverClassName(dbDriver);
+        config.setJdbcUrl(dbUrl);
+        config.setUsername(dbUsername);
+        config.setPassword(dbPassword);
+        config.setMaximumPoolSize(maximumPoolSize);
+        config.setMinimumIdle(minimumIdle);
+        config.setConnectionTimeout(connectionTimeoutMillis);
+        config.setIdleTimeout(idleTimeoutMillis);
+        config.setMaxLifetime(maxLifetimeMillis);
+        config.setLeakDetectionThreshold(leakDetectionThresholdMillis);
+        config.setRegisterMbeans(true);
+        // Кэш разобранных запросов H2 на каждое соединение пула
+        config.addDataSourceProperty("QUERY_CACHE_SIZE", String.valueOf(queryCacheSize));
+
+        HikariDataSource dataSource = new HikariDataSource(config);
+
+        // Схема создаётся до того, как бины начнут читать данные при старте
+        ResourceDatabasePopulator populator = new ResourceDatabasePopulator(new ClassPathResource("schema.sql"));
+        populator.setSqlScriptEncoding("UTF-8");
+        DatabasePopulatorUtils.execute(populator, dataSource);
+
+        return dataSource;
     }
 
     @Bean
@@ -49,4 +91,3 @@ public class DatabaseConfig {
         return new DataSourceTransactionManager(dataSource);
     }
 }
-
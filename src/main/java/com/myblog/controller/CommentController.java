@@ -1,5 +1,6 @@
 package com.myblog.controller;
 
+import com.myblog.dto.CommentPageResponse;
 import com.myblog.dto.CreateCommentRequest;
 import com.myblog.dto.UpdateCommentRequest;
 import com.myblog.model.Comment;
@@ -31,6 +32,21 @@ public class CommentController {
         return ResponseEntity.ok(comments);
     }
 
+    // Параметр limit включает постраничную выдачу по курсору для длинных веток
+    @GetMapping(params = "limit")
+    public ResponseEntity<CommentPageResponse> getCommentsPage(
+            @PathVariable Long postId,
+            @RequestParam int limit,
+            @RequestParam(required = false) String cursor) {
+
+        log.debug("GET /api/posts/{}/comments - limit: {}, cursor: {}", postId, limit, cursor);
+        try {
+            return ResponseEntity.ok(commentService.getCommentsPage(postId, cursor, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     @GetMapping("/{commentId}")
     public ResponseEntity<Comment> getComment(
             @PathVariable Long postId,
@@ -48,8 +64,12 @@ public class CommentController {
             @RequestBody CreateCommentRequest request) {
         
         log.debug("POST /api/posts/{}/comments - text: {}", postId, request.getText());
-        Comment createdComment = commentService.createComment(request);
-        return ResponseEntity.status(HttpStatus.CREATED).body(createdComment);
+        try {
+            Comment createdComment = commentService.createComment(request);
+            return ResponseEntity.status(HttpStatus.CREATED).body(createdComment);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.notFound().build();
+        }
     }
 
     @PutMapping("/{commentId}")
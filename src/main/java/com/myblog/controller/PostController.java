@@ -1,20 +1,38 @@
 package com.myblog.controller;
 
 import com.myblog.dto.CreatePostRequest;
+import com.myblog.dto.PostBatchRequest;
+import com.myblog.dto.PostBatchResponse;
 import com.myblog.dto.PostListResponse;
+import com.myblog.dto.PostsByIdsResponse;
 import com.myblog.dto.UpdatePostRequest;
 import com.myblog.model.Post;
+import com.myblog.model.PostImage;
+import com.myblog.model.PostRevision;
 import com.myblog.service.PostService;
+import com.myblog.storage.ByteRange;
+import com.myblog.storage.ImageContent;
+import com.myblog.storage.ImageVariant;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.sql.Timestamp;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/posts")
@@ -22,25 +40,102 @@ public class PostController {
 
     private static final Logger log = LoggerFactory.getLogger(PostController.class);
     private final PostService postService;
+    private final String feedCacheControl;
+    private final String postCacheControl;
+    private final String imageCacheControl;
+    private final boolean streamFeed;
 
-    public PostController(PostService postService) {
+    public PostController(PostService postService,
+                          @Value("${http.cache-control.feed:no-cache}") String feedCacheControl,
+                          @Value("${http.cache-control.post:no-cache}") String postCacheControl,
+                          @Value("${http.cache-control.image:no-cache}") String imageCacheControl,
+                          @Value("${posts.feed.streaming.enabled:false}") boolean streamFeed) {
         this.postService = postService;
+        this.feedCacheControl = feedCacheControl;
+        this.postCacheControl = postCacheControl;
+        this.imageCacheControl = imageCacheControl;
+        this.streamFeed = streamFeed;
     }
 
     @GetMapping
     public ResponseEntity<PostListResponse> getPosts(
             @RequestParam(required = true) String search,
-            @RequestParam(required = true) int pageNumber,
-            @RequestParam(required = true) int pageSize) {
+            @RequestParam(defaultValue = "1") int pageNumber,
+            @RequestParam(required = true) int pageSize,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "true") boolean withLastPage,
+            ServletWebRequest webRequest,
+            HttpServletResponse response) throws IOException {
         
-        log.debug("GET /api/posts - search: {}, pageNumber: {}, pageSize: {}", search, pageNumber, pageSize);
-        PostListResponse response = postService.getPosts(search, pageNumber, pageSize);
-        return ResponseEntity.ok(response);
+        log.debug("GET /api/posts - search: {}, pageNumber: {}, pageSize: {}, cursor: {}, withLastPage: {}",
+            search, pageNumber, pageSize, cursor, withLastPage);
+
+        // Версия ленты меняется при любой записи, поэтому страница не изменилась,
+        // если клиент прислал ETag текущей версии
+        if (checkNotModified(webRequest, "feed-" + postService.getFeedVersion(), -1, feedCacheControl)) {
+            return null;
+        }
+
+        // Параметр cursor (в том числе пустой) включает постраничную выдачу по курсору
+        if (cursor != null) {
+            try {
+                return ResponseEntity.ok(postService.getPostsAfter(search, cursor, pageSize));
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().build();
+            }
+        }
+
+        if (streamFeed) {
+            // JSON пишется в ответ по мере чтения строк, без списка постов в памяти
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.setCharacterEncoding("UTF-8");
+            postService.writePosts(search, pageNumber, pageSize, withLastPage, response.getOutputStream());
+            return null;
+        }
+
+        PostListResponse page = withLastPage
+            ? postService.getPosts(search, pageNumber, pageSize)
+            : postService.getPostsWithoutCount(search, pageNumber, pageSize);
+        return ResponseEntity.ok(page);
+    }
+
+    // Несколько постов за один запрос: GET /posts?ids=1,2,3
+    @GetMapping(params = "ids")
+    public ResponseEntity<PostsByIdsResponse> getPostsByIds(@RequestParam List<Long> ids) {
+        log.debug("GET /api/posts - ids: {}", ids);
+        try {
+            return ResponseEntity.ok(postService.getPostsByIds(ids));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    // Полная выгрузка в NDJSON; afterId — продолжить после обрыва
+    @GetMapping("/export")
+    public void exportPosts(@RequestParam(required = false) Long afterId,
+                            HttpServletResponse response) throws IOException {
+        log.debug("GET /api/posts/export - afterId: {}", afterId);
+        response.setContentType("application/x-ndjson");
+        response.setCharacterEncoding("UTF-8");
+        postService.exportPosts(afterId, response.getOutputStream());
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<Post> getPost(@PathVariable Long id) {
+    public ResponseEntity<Post> getPost(@PathVariable Long id, ServletWebRequest webRequest) {
         log.debug("GET /api/posts/{}", id);
+
+        // Сначала сверить ревизию поста, не загружая текст и теги
+        Optional<PostRevision> revision = postService.getPostRevision(id);
+        if (revision.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        // If-Modified-Since сверяется с updated_at только без If-None-Match:
+        // лайки и комментарии меняют ETag, но не дату изменения
+        if (checkNotModified(webRequest, "post-" + id + "-" + revision.get().getTag(),
+                revision.get().getLastModified(), postCacheControl)) {
+            return null;
+        }
+
         Optional<Post> post = postService.getPostById(id);
         return post.map(ResponseEntity::ok)
                    .orElse(ResponseEntity.notFound().build());
@@ -61,6 +156,18 @@ public class PostController {
         return ResponseEntity.status(HttpStatus.CREATED).body(createdPost);
     }
 
+    // Пакет операций создания, изменения и удаления в одной транзакции
+    @PostMapping("/batch")
+    public ResponseEntity<PostBatchResponse> applyBatch(@RequestBody PostBatchRequest request) {
+        log.debug("POST /api/posts/batch - operations: {}",
+            request.getOperations() != null ? request.getOperations().size() : 0);
+        try {
+            return ResponseEntity.ok(postService.applyBatch(request.getOperations()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<Post> updatePost(
             @PathVariable Long id,
@@ -78,11 +185,9 @@ public class PostController {
 
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deletePost(@PathVariable Long id) {
-        // TODO: Реализовать удаление поста
-        // 1. Вызвать postService.deletePost(id)
-        // 2. Вернуть ResponseEntity.ok().build()
-        // Подсказка: посмотрите на метод createPost как пример
-        throw new UnsupportedOperationException("TODO: Implement deletePost");
+        log.debug("DELETE /api/posts/{}", id);
+        postService.deletePost(id);
+        return ResponseEntity.ok().build();
     }
 
     @PostMapping("/{id}/likes")
@@ -94,10 +199,9 @@ public class PostController {
 
     @DeleteMapping("/{id}/likes")
     public ResponseEntity<Integer> removeLike(@PathVariable Long id) {
-        // TODO: Реализовать удаление лайка
-        // 1. Вызвать postService.decrementLikes(id)
-        // 2. Вернуть ResponseEntity.ok() с новым количеством лайков
-        throw new UnsupportedOperationException("TODO: Implement removeLike");
+        log.debug("DELETE /api/posts/{}/likes", id);
+        int likesCount = postService.decrementLikes(id);
+        return ResponseEntity.ok(likesCount);
     }
 
     @PutMapping("/{id}/image")
@@ -107,10 +211,23 @@ public class PostController {
         
         log.debug("PUT /api/posts/{}/image - filename: {}", id, image.getOriginalFilename());
         
-        try {
-            byte[] imageData = image.getBytes();
-            String contentType = image.getContentType();
-            postService.saveImage(id, imageData, contentType);
+        try (InputStream imageData = image.getInputStream()) {
+            postService.saveImage(id, imageData);
+            return ResponseEntity.ok().build();
+        } catch (IOException e) {
+            log.error("Error saving image for post {}", id, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    // Загрузка телом запроса (Content-Type: image/*): файл читается прямо из соединения,
+    // без разбора multipart и промежуточного временного файла
+    @PutMapping(value = "/{id}/image", consumes = "image/*")
+    public ResponseEntity<Void> uploadImageBody(@PathVariable Long id, HttpServletRequest request) {
+        log.debug("PUT /api/posts/{}/image - body, length: {}", id, request.getContentLengthLong());
+
+        try (InputStream imageData = request.getInputStream()) {
+            postService.saveImage(id, imageData);
             return ResponseEntity.ok().build();
         } catch (IOException e) {
             log.error("Error saving image for post {}", id, e);
@@ -119,22 +236,92 @@ public class PostController {
     }
 
     @GetMapping("/{id}/image")
-    public ResponseEntity<byte[]> getImage(@PathVariable Long id) {
-        log.debug("GET /api/posts/{}/image", id);
-        
-        Optional<byte[]> imageData = postService.getImage(id);
-        if (imageData.isEmpty()) {
-            return ResponseEntity.notFound().build();
+    public void getImage(
+            @PathVariable Long id,
+            @RequestParam(required = false) Integer w,
+            @RequestParam(required = false) Integer h,
+            @RequestHeader(value = HttpHeaders.RANGE, required = false) String range,
+            @RequestHeader(value = HttpHeaders.IF_RANGE, required = false) String ifRange,
+            ServletWebRequest webRequest,
+            HttpServletResponse response) throws IOException {
+        log.debug("GET /api/posts/{}/image - w: {}, h: {}, range: {}", id, w, h, range);
+
+        Optional<PostImage> image = postService.getImage(id);
+        if (image.isEmpty()) {
+            response.setStatus(HttpStatus.NOT_FOUND.value());
+            return;
         }
-        
-        Optional<String> contentType = postService.getImageContentType(id);
-        MediaType mediaType = contentType
-            .map(MediaType::parseMediaType)
-            .orElse(MediaType.IMAGE_JPEG);
-        
-        return ResponseEntity.ok()
-            .contentType(mediaType)
-            .body(imageData.get());
+
+        // ETag — хэш содержимого и размер копии, Last-Modified — время загрузки;
+        // на совпадение отвечаем 304, не открывая файл
+        String hash = image.get().getContentHash();
+        String etag = w == null && h == null ? hash : hash + "-" + (w != null ? w : 0) + "x" + (h != null ? h : 0);
+        long uploadedAt = image.get().getUploadedAt() != null
+            ? Timestamp.valueOf(image.get().getUploadedAt()).getTime() : -1;
+        if (hash != null && checkNotModified(webRequest, etag, uploadedAt, imageCacheControl)) {
+            return;
+        }
+        if (ifRange != null && !ifRange.equals("\"" + etag + "\"")) {
+            // Файл изменился с момента частичной загрузки — отдать целиком
+            range = null;
+        }
+
+        Optional<ImageVariant> variant;
+        try {
+            variant = postService.openImageVariant(image.get(), w, h);
+        } catch (IllegalArgumentException e) {
+            response.setStatus(HttpStatus.BAD_REQUEST.value());
+            return;
+        } catch (RejectedExecutionException e) {
+            // Очередь уменьшения изображений переполнена
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            return;
+        }
+        if (variant.isEmpty()) {
+            response.setStatus(HttpStatus.NOT_FOUND.value());
+            return;
+        }
+
+        ImageContent content = variant.get().getContent();
+        String mediaType = Optional.ofNullable(variant.get().getContentType())
+            .orElse(MediaType.IMAGE_JPEG_VALUE);
+        long size = content.size();
+
+        ByteRange byteRange;
+        try {
+            byteRange = ByteRange.parse(range, size);
+        } catch (IllegalArgumentException e) {
+            response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+            return;
+        }
+
+        response.setContentType(mediaType);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        long start = 0;
+        long length = size;
+        if (byteRange != null) {
+            start = byteRange.getStart();
+            length = byteRange.length();
+            response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+            response.setHeader(HttpHeaders.CONTENT_RANGE,
+                "bytes " + byteRange.getStart() + "-" + byteRange.getEnd() + "/" + size);
+        }
+        response.setContentLengthLong(length);
+
+        // Файл копируется в ответ через FileChannel.transferTo, без загрузки в память
+        content.transferTo(start, length, Channels.newChannel(response.getOutputStream()));
     }
-}
 
+    // Выставляет Cache-Control, ETag и Last-Modified (если lastModified >= 0);
+    // true — клиенту уже отдан статус 304
+    private boolean checkNotModified(ServletWebRequest webRequest, String etag, long lastModified,
+                                     String cacheControl) {
+        HttpServletResponse response = webRequest.getResponse();
+        if (response != null) {
+            response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl);
+        }
+        return webRequest.checkNotModified("\"" + etag + "\"", lastModified);
+    }
+}
@@ -0,0 +1,34 @@
+package com.myblog.controller;
+
+import com.myblog.dto.ImportReport;
+import com.myblog.service.PostImportService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+@RestController
+@RequestMapping("/posts/import")
+public class PostImportController {
+
+    private static final Logger log = LoggerFactory.getLogger(PostImportController.class);
+    private final PostImportService postImportService;
+
+    public PostImportController(PostImportService postImportService) {
+        this.postImportService = postImportService;
+    }
+
+    @PostMapping(consumes = "application/x-ndjson")
+    public ResponseEntity<ImportReport> importPosts(HttpServletRequest request) throws IOException {
+        log.debug("POST /api/posts/import - length: {}", request.getContentLengthLong());
+        try (InputStream ndjson = request.getInputStream()) {
+            return ResponseEntity.ok(postImportService.importPosts(ndjson));
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.myblog.controller;
+
+import com.myblog.dao.support.LikeCounterBuffer;
+import com.myblog.dao.support.PostCache;
+import com.myblog.dao.support.PostPurgeWorker;
+import com.myblog.storage.ImageVariants;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/stats")
+public class StatsController {
+
+    private final PostCache postCache;
+    private final LikeCounterBuffer likeCounterBuffer;
+    private final HikariDataSource dataSource;
+    private final ImageVariants imageVariants;
+    private final PostPurgeWorker postPurgeWorker;
+
+    public StatsController(PostCache postCache, LikeCounterBuffer likeCounterBuffer,
+                           HikariDataSource dataSource, ImageVariants imageVariants,
+                           PostPurgeWorker postPurgeWorker) {
+        this.postCache = postCache;
+        this.likeCounterBuffer = likeCounterBuffer;
+        this.dataSource = dataSource;
+        this.imageVariants = imageVariants;
+        this.postPurgeWorker = postPurgeWorker;
+    }
+
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("postCache", postCache.stats());
+        stats.put("pendingLikes", likeCounterBuffer.stats());
+        stats.put("connectionPool", connectionPoolStats());
+        stats.put("imageVariants", imageVariants.stats());
+        stats.put("deletedPostsPurge", postPurgeWorker.stats());
+        return ResponseEntity.ok(stats);
+    }
+
+    private Map<String, Integer> connectionPoolStats() {
+        Map<String, Integer> stats = new LinkedHashMap<>();
+        HikariPoolMXBean pool = dataSource.getHikariPoolMXBean();
+        if (pool == null) {
+            return stats;
+        }
+        stats.put("active", pool.getActiveConnections());
+        stats.put("idle", pool.getIdleConnections());
+        stats.put("total", pool.getTotalConnections());
+        stats.put("maximum", dataSource.getMaximumPoolSize());
+        // Потоки, ожидающие соединения: больше нуля — пул насыщен
+        stats.put("waiting", pool.getThreadsAwaitingConnection());
+        return stats;
+    }
+}
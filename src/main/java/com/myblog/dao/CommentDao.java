@@ -1,5 +1,6 @@
 package com.myblog.dao;
 
+import com.myblog.dao.support.KeysetCursor;
 import com.myblog.model.Comment;
 
 import java.util.List;
@@ -9,8 +10,10 @@ public interface CommentDao {
     Comment create(Comment comment);
     Optional<Comment> findById(Long id);
     List<Comment> findByPostId(Long postId);
+    List<Comment> findPage(Long postId, KeysetCursor after, int limit);
     Comment update(Comment comment);
     void delete(Long id);
     int countByPostId(Long postId);
+    int getCommentsCount(Long postId);
 }
 
@@ -0,0 +1,12 @@
+package com.myblog.dao;
+
+import java.io.IOException;
+
+/**
+ * Получает строки ленты по одной, прямо из ResultSet, без сборки объектов Post.
+ */
+@FunctionalInterface
+public interface FeedRowHandler {
+    void handle(long id, String title, String preview, Object[] tags, int likesCount, int commentsCount)
+        throws IOException;
+}
@@ -1,21 +1,40 @@
 package com.myblog.dao;
 
+import com.myblog.dao.support.KeysetCursor;
 import com.myblog.model.Post;
+import com.myblog.model.PostImage;
+import com.myblog.model.PostRevision;
+import com.myblog.storage.StoredImage;
 
+import java.io.IOException;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 public interface PostDao {
     Post create(Post post);
+    void createAll(List<Post> posts);
     Optional<Post> findById(Long id);
+    List<Post> findByIds(Collection<Long> ids);
     List<Post> findAll(String search, int pageNumber, int pageSize);
-    Post update(Post post);
+    List<Post> findSlice(String search, int offset, int limit);
+    List<Post> findAfter(String search, KeysetCursor after, int limit);
+    void streamSlice(String search, int offset, int limit, FeedRowHandler handler) throws IOException;
+    void exportAfter(Long afterId, PostExportHandler handler) throws IOException;
+    Optional<Post> update(Post post);
+    List<Post> updateAll(List<Post> posts);
     void delete(Long id);
-    void incrementLikes(Long id);
-    void decrementLikes(Long id);
+    Set<Long> deleteAll(Collection<Long> ids);
+    int incrementLikes(Long id);
+    int decrementLikes(Long id);
     int getTotalCount(String search);
-    void saveImage(Long postId, byte[] imageData, String contentType);
+    Optional<PostRevision> findRevision(Long id);
+    long getContentVersion();
+    int repairCommentsCount();
+    void saveImage(Long postId, StoredImage image, String contentType);
+    Optional<PostImage> findImage(Long postId);
+    boolean isImageReferenced(String contentHash);
     Optional<byte[]> getImage(Long postId);
-    Optional<String> getImageContentType(Long postId);
 }
 
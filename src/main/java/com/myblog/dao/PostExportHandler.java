@@ -0,0 +1,16 @@
+package com.myblog.dao;
+
+import com.myblog.model.Comment;
+import com.myblog.model.Post;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Получает посты выгрузки по одному, вместе с комментариями, в порядке id.
+ * Список комментариев переиспользуется и действителен только до возврата из handle.
+ */
+@FunctionalInterface
+public interface PostExportHandler {
+    void handle(Post post, List<Comment> comments) throws IOException;
+}
@@ -2,14 +2,22 @@ package com.myblog.dao;
 
 import com.myblog.model.Tag;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 public interface TagDao {
     Tag create(String tagName);
     Optional<Tag> findByName(String name);
     List<Tag> findByPostId(Long postId);
+    Map<Long, List<String>> findNamesByPostIds(Collection<Long> postIds);
+    Map<String, Long> upsertAll(Collection<String> names);
     void linkTagToPost(Long tagId, Long postId);
+    void linkTagsToPost(Long postId, Collection<Long> tagIds);
+    void linkAll(Map<Long, ? extends Collection<Long>> tagIdsByPost);
+    void relinkTags(Long postId, Collection<Long> tagIds);
+    void relinkAll(Map<Long, ? extends Collection<Long>> tagIdsByPost);
     void unlinkAllTagsFromPost(Long postId);
 }
 
@@ -1,18 +1,19 @@
 package com.myblog.dao.impl;
 
 import com.myblog.dao.CommentDao;
+import com.myblog.dao.support.KeysetCursor;
+import com.myblog.dao.support.PostWriteListener;
 import com.myblog.model.Comment;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
-import org.springframework.jdbc.support.GeneratedKeyHolder;
-import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Repository;
 
-import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
@@ -21,27 +22,36 @@ public class CommentDaoImpl implements CommentDao {
 
     private static final Logger log = LoggerFactory.getLogger(CommentDaoImpl.class);
     private final JdbcTemplate jdbcTemplate;
+    private final PostWriteListener writeListener;
 
-    public CommentDaoImpl(JdbcTemplate jdbcTemplate) {
+    public CommentDaoImpl(JdbcTemplate jdbcTemplate, PostWriteListener writeListener) {
         this.jdbcTemplate = jdbcTemplate;
+        this.writeListener = writeListener;
     }
 
     @Override
     public Comment create(Comment comment) {
-        String sql = "INSERT INTO comments (text, post_id) VALUES (?, ?)";
-        KeyHolder keyHolder = new GeneratedKeyHolder();
-
-        jdbcTemplate.update(connection -> {
-            PreparedStatement ps = connection.prepareStatement(sql, new String[]{"id"});
-            ps.setString(1, comment.getText());
-            ps.setLong(2, comment.getPostId());
-            return ps;
-        }, keyHolder);
+        // Счётчики в posts и post_summary обновляются в той же транзакции, что и вставка.
+        // UPDATE блокирует строку поста, поэтому пост не может быть удалён до коммита
+        int updated = jdbcTemplate.update(
+            "UPDATE posts SET comments_count = comments_count + 1 WHERE id = ? AND deleted_at IS NULL",
+            comment.getPostId());
+        if (updated == 0) {
+            throw new IllegalArgumentException("Post not found with id: " + comment.getPostId());
+        }
 
-        Long commentId = keyHolder.getKey().longValue();
-        comment.setId(commentId);
+        // Сгенерированные id и даты возвращает сам INSERT, без повторного чтения комментария
+        String sql = "SELECT id, created_at, updated_at FROM FINAL TABLE " +
+                     "(INSERT INTO comments (text, post_id) VALUES (?, ?))";
+        jdbcTemplate.queryForObject(sql, (rs, rowNum) -> {
+            comment.setId(rs.getLong("id"));
+            comment.setCreatedAt(rs.getTimestamp("created_at").toLocalDateTime());
+            comment.setUpdatedAt(rs.getTimestamp("updated_at").toLocalDateTime());
+            return comment;
+        }, comment.getText(), comment.getPostId());
+        writeListener.commentsChanged(comment.getPostId(), 1);
 
-        return findById(commentId).orElse(comment);
+        return comment;
     }
 
     @Override
@@ -62,6 +72,26 @@ public class CommentDaoImpl implements CommentDao {
         return jdbcTemplate.query(sql, new CommentRowMapper(), postId);
     }
 
+    @Override
+    public List<Comment> findPage(Long postId, KeysetCursor after, int limit) {
+        StringBuilder sql = new StringBuilder(
+            "SELECT id, text, post_id, created_at, updated_at FROM comments WHERE post_id = ?");
+        List<Object> params = new ArrayList<>();
+        params.add(postId);
+
+        // Продолжить с позиции курсора по индексу idx_comment_post_created_id вместо OFFSET
+        if (after != null) {
+            sql.append(" AND (created_at, id) > (?, ?)");
+            params.add(Timestamp.valueOf(after.getCreatedAt()));
+            params.add(after.getId());
+        }
+
+        sql.append(" ORDER BY created_at ASC, id ASC LIMIT ?");
+        params.add(limit);
+
+        return jdbcTemplate.query(sql.toString(), new CommentRowMapper(), params.toArray());
+    }
+
     @Override
     public Comment update(Comment comment) {
         // TODO: Реализовать обновление комментария
@@ -73,10 +103,14 @@ public class CommentDaoImpl implements CommentDao {
 
     @Override
     public void delete(Long id) {
-        // TODO: Реализовать удаление комментария
-        // Выполнить SQL DELETE: DELETE FROM comments WHERE id = ?
-        // Пример: String sql = "DELETE FROM comments WHERE id = ?";
-        throw new UnsupportedOperationException("TODO: Implement delete");
+        // Счётчик уменьшает только тот, чей DELETE действительно удалил строку:
+        // параллельное удаление того же комментария вернёт пустой результат
+        List<Long> postIds = jdbcTemplate.queryForList(
+            "SELECT post_id FROM OLD TABLE (DELETE FROM comments WHERE id = ?)", Long.class, id);
+        for (Long postId : postIds) {
+            jdbcTemplate.update("UPDATE posts SET comments_count = comments_count - 1 WHERE id = ?", postId);
+            writeListener.commentsChanged(postId, -1);
+        }
     }
 
     @Override
@@ -86,6 +120,14 @@ public class CommentDaoImpl implements CommentDao {
         return count != null ? count : 0;
     }
 
+    // Поддерживаемый счётчик из posts вместо COUNT(*) по всей ветке
+    @Override
+    public int getCommentsCount(Long postId) {
+        List<Integer> counts = jdbcTemplate.queryForList(
+            "SELECT comments_count FROM posts WHERE id = ?", Integer.class, postId);
+        return counts.isEmpty() ? 0 : counts.get(0);
+    }
+
     private static class CommentRowMapper implements RowMapper<Comment> {
         @Override
         public Comment mapRow(ResultSet rs, int rowNum) throws SQLException {
@@ -1,72 +1,178 @@
 package com.myblog.dao.impl;
 
+import com.myblog.dao.FeedRowHandler;
 import com.myblog.dao.PostDao;
+import com.myblog.dao.PostExportHandler;
 import com.myblog.dao.TagDao;
+import com.myblog.dao.support.KeysetCursor;
+import com.myblog.dao.support.LikeCounterBuffer;
+import com.myblog.dao.support.PostCache;
+import com.myblog.dao.support.PostCountCache;
+import com.myblog.dao.support.PostIdBitmap;
+import com.myblog.dao.support.PostWriteListener;
+import com.myblog.dao.support.TagBitmapIndex;
+import com.myblog.dao.support.TagDictionary;
+import com.myblog.dao.support.TransactionTagMemo;
+import com.myblog.model.Comment;
 import com.myblog.model.Post;
+import com.myblog.model.PostImage;
+import com.myblog.model.PostRevision;
+import com.myblog.model.Tag;
+import com.myblog.search.PostSearchIndex;
+import com.myblog.storage.StoredImage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Repository;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.Array;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Timestamp;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Repository
 public class PostDaoImpl implements PostDao {
 
     private static final Logger log = LoggerFactory.getLogger(PostDaoImpl.class);
+    private static final int PREVIEW_LENGTH = 128;
+    // Лента читается из post_summary: превью, теги и счётчики уже в строке
+    private static final String SUMMARY_COLUMNS =
+        "SELECT p.id, p.title, p.preview, p.tags, p.likes_count, p.comments_count, p.created_at, p.updated_at ";
+    private static final String STREAM_COLUMNS =
+        "SELECT p.id, p.title, p.preview, p.tags, p.likes_count, p.comments_count ";
+    private static final Object[] EMPTY_TAGS = new Object[0];
     private final JdbcTemplate jdbcTemplate;
     private final TagDao tagDao;
-
-    public PostDaoImpl(JdbcTemplate jdbcTemplate, TagDao tagDao) {
+    private final TransactionTagMemo tagMemo;
+    private final PostCountCache postCountCache;
+    private final PostSearchIndex postSearchIndex;
+    private final TagBitmapIndex tagBitmapIndex;
+    private final PostCache postCache;
+    private final LikeCounterBuffer likeCounterBuffer;
+    private final TagDictionary tagDictionary;
+    private final PostWriteListener writeListener;
+    private final int exportFetchSize;
+
+    public PostDaoImpl(JdbcTemplate jdbcTemplate, TagDao tagDao, TransactionTagMemo tagMemo,
+                       PostCountCache postCountCache, PostSearchIndex postSearchIndex,
+                       TagBitmapIndex tagBitmapIndex, PostCache postCache,
+                       LikeCounterBuffer likeCounterBuffer, TagDictionary tagDictionary,
+                       PostWriteListener writeListener,
+                       @Value("${export.fetch-size:500}") int exportFetchSize) {
         this.jdbcTemplate = jdbcTemplate;
         this.tagDao = tagDao;
+        this.tagMemo = tagMemo;
+        this.postCountCache = postCountCache;
+        this.postSearchIndex = postSearchIndex;
+        this.tagBitmapIndex = tagBitmapIndex;
+        this.postCache = postCache;
+        this.likeCounterBuffer = likeCounterBuffer;
+        this.tagDictionary = tagDictionary;
+        this.writeListener = writeListener;
+        this.exportFetchSize = exportFetchSize;
     }
 
     @Override
     public Post create(Post post) {
-        String sql = "INSERT INTO posts (title, text, likes_count) VALUES (?, ?, 0)";
-        KeyHolder keyHolder = new GeneratedKeyHolder();
-
-        jdbcTemplate.update(connection -> {
-            PreparedStatement ps = connection.prepareStatement(sql, new String[]{"id"});
-            ps.setString(1, post.getTitle());
-            ps.setString(2, post.getText());
-            return ps;
-        }, keyHolder);
+        // Сгенерированные id и даты возвращает сам INSERT, без повторного чтения поста
+        String sql = "SELECT id, created_at, updated_at FROM FINAL TABLE " +
+                     "(INSERT INTO posts (title, text, preview, likes_count) VALUES (?, ?, ?, 0))";
+        jdbcTemplate.queryForObject(sql, (rs, rowNum) -> {
+            post.setId(rs.getLong("id"));
+            post.setCreatedAt(rs.getTimestamp("created_at").toLocalDateTime());
+            post.setUpdatedAt(rs.getTimestamp("updated_at").toLocalDateTime());
+            return post;
+        }, post.getTitle(), post.getText(), toPreview(post.getText()));
 
-        Long postId = keyHolder.getKey().longValue();
-        post.setId(postId);
+        Long postId = post.getId();
         post.setLikesCount(0);
         post.setCommentsCount(0);
 
         // Сохранить теги
-        if (post.getTags() != null && !post.getTags().isEmpty()) {
-            saveTags(postId, post.getTags());
+        Map<String, Long> tags = resolveTags(post.getTags() != null ? post.getTags() : List.of());
+        if (!tags.isEmpty()) {
+            tagDao.linkTagsToPost(postId, new ArrayList<>(tags.values()));
         }
+        post.setTags(tagNamesInReadOrder(tags));
+        writeListener.created(List.of(post));
 
-        return findById(postId).orElse(post);
+        return post;
+    }
+
+    @Override
+    public void createAll(List<Post> posts) {
+        if (posts.isEmpty()) {
+            return;
+        }
+
+        String sql = "INSERT INTO posts (title, text, preview, likes_count) VALUES (?, ?, ?, ?)";
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(connection -> connection.prepareStatement(sql, new String[]{"id"}),
+            new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    Post post = posts.get(i);
+                    ps.setString(1, post.getTitle());
+                    ps.setString(2, post.getText());
+                    ps.setString(3, toPreview(post.getText()));
+                    ps.setInt(4, post.getLikesCount() != null ? post.getLikesCount() : 0);
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return posts.size();
+                }
+            }, keyHolder);
+
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        for (int i = 0; i < posts.size(); i++) {
+            Post post = posts.get(i);
+            post.setId(((Number) keys.get(i).get("id")).longValue());
+            post.setLikesCount(post.getLikesCount() != null ? post.getLikesCount() : 0);
+            post.setCommentsCount(0);
+        }
+        tagDao.linkAll(resolveTagLinks(posts));
+        writeListener.created(posts);
     }
 
     @Override
     public Optional<Post> findById(Long id) {
-        String sql = "SELECT p.id, p.title, p.text, p.likes_count, p.created_at, p.updated_at, " +
-                     "(SELECT COUNT(*) FROM comments c WHERE c.post_id = p.id) as comments_count " +
-                     "FROM posts p WHERE p.id = ?";
+        Optional<Post> cached = postCache.get(id);
+        if (cached.isPresent()) {
+            applyPendingLikes(List.of(cached.get()));
+            return cached;
+        }
+        long cacheVersion = postCache.version();
+
+        String sql = "SELECT p.id, p.title, p.text, p.likes_count, p.comments_count, p.created_at, p.updated_at " +
+                     "FROM posts p WHERE p.id = ? AND p.deleted_at IS NULL";
         
         try {
             Post post = jdbcTemplate.queryForObject(sql, new PostRowMapper(), id);
             if (post != null) {
-                post.setTags(tagDao.findByPostId(id).stream()
-                    .map(tag -> tag.getName())
-                    .toList());
+                tagMemo.loadTags(List.of(post));
+                postCache.put(post, cacheVersion);
+                applyPendingLikes(List.of(post));
             }
             return Optional.ofNullable(post);
         } catch (Exception e) {
@@ -75,134 +181,520 @@ public class PostDaoImpl implements PostDao {
         }
     }
 
+    @Override
+    public List<Post> findByIds(Collection<Long> ids) {
+        Set<Long> unique = new LinkedHashSet<>(ids);
+        Map<Long, Post> found = new HashMap<>();
+        List<Long> misses = new ArrayList<>();
+        for (Long id : unique) {
+            Optional<Post> cached = postCache.get(id);
+            if (cached.isPresent()) {
+                found.put(id, cached.get());
+            } else {
+                misses.add(id);
+            }
+        }
+
+        // Всё, чего нет в кэше, — одним запросом по ANY(?) и одним запросом тегов
+        if (!misses.isEmpty()) {
+            long cacheVersion = postCache.version();
+            String sql = "SELECT p.id, p.title, p.text, p.likes_count, p.comments_count, p.created_at, p.updated_at " +
+                         "FROM posts p WHERE p.id = ANY(?) AND p.deleted_at IS NULL";
+            List<Post> loaded = jdbcTemplate.query(sql, new PostRowMapper(), (Object) misses.toArray(new Long[0]));
+            tagMemo.loadTags(loaded);
+            for (Post post : loaded) {
+                postCache.put(post, cacheVersion);
+                found.put(post.getId(), post);
+            }
+        }
+
+        List<Post> posts = new ArrayList<>(found.size());
+        for (Long id : unique) {
+            Post post = found.get(id);
+            if (post != null) {
+                posts.add(post);
+            }
+        }
+        applyPendingLikes(posts);
+        return posts;
+    }
+
     @Override
     public List<Post> findAll(String search, int pageNumber, int pageSize) {
+        return findSlice(search, (pageNumber - 1) * pageSize, pageSize);
+    }
+
+    @Override
+    public List<Post> findSlice(String search, int offset, int limit) {
         List<String> tags = new ArrayList<>();
-        String titleSearch = parseSearchQuery(search, tags);
+        String textSearch = parseSearchQuery(search, tags);
+        if (usesFullTextSearch(textSearch)) {
+            // Порядок выдачи задаёт релевантность из полнотекстового индекса
+            List<Long> rankedIds = findRankedIds(textSearch, tags);
+            if (offset >= rankedIds.size()) {
+                return new ArrayList<>();
+            }
+            return findPreviewsByIds(rankedIds.subList(offset, Math.min(offset + limit, rankedIds.size())));
+        }
+        if (usesTagBitmap(tags)) {
+            // Только теги: страница id берётся прямо из битовой карты. id выдаются
+            // по возрастанию вместе с created_at, поэтому порядок тот же, что и в ленте
+            return findPreviewsByIds(postsWithAllTags(tags).descending(offset, limit));
+        }
 
-        StringBuilder sql = new StringBuilder(
-            "SELECT p.id, p.title, p.text, p.likes_count, p.created_at, p.updated_at, " +
-            "(SELECT COUNT(*) FROM comments c WHERE c.post_id = p.id) as comments_count " +
-            "FROM posts p WHERE 1=1"
-        );
+        StringBuilder sql = new StringBuilder(SUMMARY_COLUMNS + "FROM post_summary p WHERE 1=1");
+        List<Object> params = new ArrayList<>();
+        appendSearchFilters(search, sql, params);
+
+        sql.append(" ORDER BY p.created_at DESC, p.id DESC");
+        sql.append(" LIMIT ? OFFSET ?");
+        params.add(limit);
+        params.add(offset);
 
+        return loadFeedPage(sql.toString(), params);
+    }
+
+    @Override
+    public List<Post> findAfter(String search, KeysetCursor after, int limit) {
+        StringBuilder sql = new StringBuilder(SUMMARY_COLUMNS + "FROM post_summary p WHERE 1=1");
         List<Object> params = new ArrayList<>();
+        appendSearchFilters(search, sql, params);
 
-        // Фильтр по подстроке в названии
-        if (titleSearch != null && !titleSearch.isEmpty()) {
-            sql.append(" AND LOWER(p.title) LIKE LOWER(?)");
-            params.add("%" + titleSearch + "%");
+        // Продолжить с позиции курсора по индексу idx_post_summary_created_id вместо OFFSET
+        if (after != null) {
+            sql.append(" AND (p.created_at, p.id) < (?, ?)");
+            params.add(Timestamp.valueOf(after.getCreatedAt()));
+            params.add(after.getId());
         }
 
-        // Фильтр по тегам
-        if (!tags.isEmpty()) {
-            for (int i = 0; i < tags.size(); i++) {
-                sql.append(" AND EXISTS (SELECT 1 FROM post_tags pt " +
-                          "JOIN tags t ON pt.tag_id = t.id " +
-                          "WHERE pt.post_id = p.id AND t.name = ?)");
-                params.add(tags.get(i));
+        sql.append(" ORDER BY p.created_at DESC, p.id DESC");
+        sql.append(" LIMIT ?");
+        params.add(limit);
+
+        return loadFeedPage(sql.toString(), params);
+    }
+
+    @Override
+    public void streamSlice(String search, int offset, int limit, FeedRowHandler handler) throws IOException {
+        List<String> tags = new ArrayList<>();
+        String textSearch = parseSearchQuery(search, tags);
+        if (usesFullTextSearch(textSearch)) {
+            List<Long> rankedIds = findRankedIds(textSearch, tags);
+            if (offset < rankedIds.size()) {
+                streamByIds(rankedIds.subList(offset, Math.min(offset + limit, rankedIds.size())), handler);
             }
+            return;
         }
+        if (usesTagBitmap(tags)) {
+            streamByIds(postsWithAllTags(tags).descending(offset, limit), handler);
+            return;
+        }
+
+        StringBuilder sql = new StringBuilder(STREAM_COLUMNS + "FROM post_summary p WHERE 1=1");
+        List<Object> params = new ArrayList<>();
+        appendSearchFilters(search, sql, params);
 
-        sql.append(" ORDER BY p.created_at DESC");
+        sql.append(" ORDER BY p.created_at DESC, p.id DESC");
         sql.append(" LIMIT ? OFFSET ?");
-        params.add(pageSize);
-        params.add((pageNumber - 1) * pageSize);
+        params.add(limit);
+        params.add(offset);
 
-        List<Post> posts = jdbcTemplate.query(sql.toString(), new PostRowMapper(), params.toArray());
+        stream(sql.toString(), params.toArray(), handler);
+    }
 
-        // Загрузить теги для каждого поста
-        for (Post post : posts) {
-            post.setTags(tagDao.findByPostId(post.getId()).stream()
-                .map(tag -> tag.getName())
-                .toList());
-            
-            // Обрезать текст до 128 символов для списка
-            if (post.getText().length() > 128) {
-                post.setText(post.getText().substring(0, 128) + "…");
+    @Override
+    public void exportAfter(Long afterId, PostExportHandler handler) throws IOException {
+        // Один проход курсором: строки поста идут подряд, по одной на комментарий
+        String sql = "SELECT p.id, p.title, p.text, p.likes_count, p.comments_count, p.created_at, p.updated_at, " +
+                     "(SELECT ARRAY_AGG(t.name ORDER BY t.id) FROM post_tags pt JOIN tags t ON t.id = pt.tag_id " +
+                     "WHERE pt.post_id = p.id) AS tags, " +
+                     "c.id AS comment_id, c.text AS comment_text, " +
+                     "c.created_at AS comment_created_at, c.updated_at AS comment_updated_at " +
+                     "FROM posts p LEFT JOIN comments c ON c.post_id = p.id " +
+                     "WHERE p.id > ? AND p.deleted_at IS NULL ORDER BY p.id, c.created_at, c.id";
+
+        PostRowMapper postMapper = new PostRowMapper();
+        Post[] current = new Post[1];
+        List<Comment> comments = new ArrayList<>();
+        try {
+            jdbcTemplate.query(connection -> {
+                PreparedStatement ps = connection.prepareStatement(sql,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                ps.setFetchSize(exportFetchSize);
+                ps.setLong(1, afterId != null ? afterId : 0);
+                return ps;
+            }, (RowCallbackHandler) rs -> {
+                long id = rs.getLong("id");
+                if (current[0] == null || current[0].getId() != id) {
+                    emit(handler, current[0], comments);
+                    Post post = postMapper.mapRow(rs, rs.getRow());
+                    Array tags = rs.getArray("tags");
+                    if (tags != null) {
+                        post.setTags(toTagList((Object[]) tags.getArray()));
+                        tags.free();
+                    }
+                    applyPendingLikes(List.of(post));
+                    current[0] = post;
+                    comments.clear();
+                }
+                long commentId = rs.getLong("comment_id");
+                if (!rs.wasNull()) {
+                    Comment comment = new Comment(commentId, rs.getString("comment_text"), id);
+                    comment.setCreatedAt(rs.getTimestamp("comment_created_at").toLocalDateTime());
+                    comment.setUpdatedAt(rs.getTimestamp("comment_updated_at").toLocalDateTime());
+                    comments.add(comment);
+                }
+            });
+            emit(handler, current[0], comments);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static void emit(PostExportHandler handler, Post post, List<Comment> comments) {
+        if (post == null) {
+            return;
+        }
+        try {
+            handler.handle(post, comments);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static List<String> toTagList(Object[] tags) {
+        List<String> names = new ArrayList<>(tags.length);
+        for (Object tag : tags) {
+            names.add((String) tag);
+        }
+        return names;
+    }
+
+    // Порядок id (релевантность или битовая карта) сохраняется через номер элемента в массиве
+    private void streamByIds(List<Long> ids, FeedRowHandler handler) throws IOException {
+        if (ids.isEmpty()) {
+            return;
+        }
+        String sql = STREAM_COLUMNS +
+                     "FROM UNNEST(?) WITH ORDINALITY AS r(id, ord) JOIN post_summary p ON p.id = r.id ORDER BY r.ord";
+        stream(sql, new Object[]{ids.toArray(new Long[0])}, handler);
+    }
+
+    private void stream(String sql, Object[] params, FeedRowHandler handler) throws IOException {
+        try {
+            jdbcTemplate.query(sql, (RowCallbackHandler) rs -> {
+                long id = rs.getLong("id");
+                Array tags = rs.getArray("tags");
+                int likesCount = rs.getInt("likes_count");
+                if (likeCounterBuffer.isEnabled()) {
+                    likesCount = likeCounterBuffer.merge(id, likesCount);
+                }
+                try {
+                    handler.handle(id, rs.getString("title"), rs.getString("preview"),
+                        tags != null ? (Object[]) tags.getArray() : EMPTY_TAGS,
+                        likesCount, rs.getInt("comments_count"));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                } finally {
+                    if (tags != null) {
+                        tags.free();
+                    }
+                }
+            }, params);
+        } catch (UncheckedIOException e) {
+            // Клиент закрыл соединение или запись в ответ не удалась
+            throw e.getCause();
+        }
+    }
+
+    private List<Long> findRankedIds(String textSearch, List<String> tags) {
+        List<Long> rankedIds = postSearchIndex.search(textSearch);
+        if (rankedIds.isEmpty()) {
+            return rankedIds;
+        }
+
+        if (usesTagBitmap(tags)) {
+            PostIdBitmap tagged = postsWithAllTags(tags);
+            rankedIds = rankedIds.stream().filter(tagged::contains).toList();
+            tags = List.of();
+            if (rankedIds.isEmpty()) {
+                return rankedIds;
             }
         }
 
+        // Оставить только существующие посты, подходящие под фильтр по тегам
+        StringBuilder sql = new StringBuilder("SELECT p.id FROM post_summary p WHERE p.id = ANY(?)");
+        List<Object> params = new ArrayList<>();
+        params.add(rankedIds.toArray(new Long[0]));
+        appendTagFilters(tags, sql, params);
+
+        Set<Long> matching = new HashSet<>(jdbcTemplate.queryForList(sql.toString(), Long.class, params.toArray()));
+        List<Long> result = new ArrayList<>(matching.size());
+        for (Long id : rankedIds) {
+            if (matching.contains(id)) {
+                result.add(id);
+            }
+        }
+        return result;
+    }
+
+    private List<Post> findPreviewsByIds(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        String sql = SUMMARY_COLUMNS + "FROM post_summary p WHERE p.id = ANY(?)";
+        Map<Long, Post> byId = new HashMap<>();
+        for (Post post : jdbcTemplate.query(sql, new PostSummaryRowMapper(), (Object) ids.toArray(new Long[0]))) {
+            byId.put(post.getId(), post);
+        }
+
+        List<Post> posts = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Post post = byId.get(id);
+            if (post != null) {
+                posts.add(post);
+            }
+        }
+        applyPendingLikes(posts);
+        return posts;
+    }
+
+    private List<Post> loadFeedPage(String sql, List<Object> params) {
+        // В списке вместо полного текста — сохранённое превью, теги уже в строке
+        List<Post> posts = jdbcTemplate.query(sql, new PostSummaryRowMapper(), params.toArray());
+        applyPendingLikes(posts);
+
         return posts;
     }
 
     @Override
-    public Post update(Post post) {
-        String sql = "UPDATE posts SET title = ?, text = ?, updated_at = CURRENT_TIMESTAMP WHERE id = ?";
-        jdbcTemplate.update(sql, post.getTitle(), post.getText(), post.getId());
+    public Optional<Post> update(Post post) {
+        String sql = "SELECT likes_count, comments_count, created_at, updated_at FROM FINAL TABLE " +
+                     "(UPDATE posts SET title = ?, text = ?, preview = ?, updated_at = CURRENT_TIMESTAMP WHERE id = ? AND deleted_at IS NULL)";
+        List<Post> updated = jdbcTemplate.query(sql, (rs, rowNum) -> {
+            post.setLikesCount(rs.getInt("likes_count"));
+            post.setCommentsCount(rs.getInt("comments_count"));
+            post.setCreatedAt(rs.getTimestamp("created_at").toLocalDateTime());
+            post.setUpdatedAt(rs.getTimestamp("updated_at").toLocalDateTime());
+            return post;
+        }, post.getTitle(), post.getText(), toPreview(post.getText()), post.getId());
 
-        // Обновить теги
-        tagDao.unlinkAllTagsFromPost(post.getId());
-        if (post.getTags() != null && !post.getTags().isEmpty()) {
-            saveTags(post.getId(), post.getTags());
+        if (updated.isEmpty()) {
+            // Пост удалён после проверки в сервисе
+            return Optional.empty();
         }
 
-        return findById(post.getId()).orElse(post);
+        // Обновить теги: удаляются и добавляются только изменившиеся связи
+        Map<String, Long> tags = resolveTags(post.getTags() != null ? post.getTags() : List.of());
+        tagDao.relinkTags(post.getId(), new ArrayList<>(tags.values()));
+        writeListener.updated(List.of(post));
+
+        post.setTags(tagNamesInReadOrder(tags));
+        applyPendingLikes(List.of(post));
+        return Optional.of(post);
+    }
+
+    @Override
+    public List<Post> updateAll(List<Post> posts) {
+        if (posts.isEmpty()) {
+            return List.of();
+        }
+
+        String sql = "UPDATE posts SET title = ?, text = ?, preview = ?, updated_at = CURRENT_TIMESTAMP WHERE id = ? AND deleted_at IS NULL";
+        List<Object[]> batch = new ArrayList<>(posts.size());
+        for (Post post : posts) {
+            batch.add(new Object[]{post.getTitle(), post.getText(), toPreview(post.getText()), post.getId()});
+        }
+        int[] counts = jdbcTemplate.batchUpdate(sql, batch);
+
+        List<Post> updated = new ArrayList<>(posts.size());
+        for (int i = 0; i < posts.size(); i++) {
+            if (counts[i] != 0) {
+                updated.add(posts.get(i));
+            }
+        }
+        if (updated.isEmpty()) {
+            return updated;
+        }
+
+        tagDao.relinkAll(resolveTagLinks(updated));
+
+        // Счётчики и даты для ответа — одним запросом по всем обновлённым постам
+        Map<Long, Post> byId = new HashMap<>();
+        for (Post post : updated) {
+            byId.put(post.getId(), post);
+        }
+        jdbcTemplate.query("SELECT id, likes_count, comments_count, created_at, updated_at FROM posts WHERE id = ANY(?)",
+            rs -> {
+                Post post = byId.get(rs.getLong("id"));
+                post.setLikesCount(rs.getInt("likes_count"));
+                post.setCommentsCount(rs.getInt("comments_count"));
+                post.setCreatedAt(rs.getTimestamp("created_at").toLocalDateTime());
+                post.setUpdatedAt(rs.getTimestamp("updated_at").toLocalDateTime());
+            }, (Object) byId.keySet().toArray(new Long[0]));
+        writeListener.updated(updated);
+        applyPendingLikes(updated);
+        return updated;
+    }
+
+    @Override
+    public Set<Long> deleteAll(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return Set.of();
+        }
+
+        // Пост только помечается удалённым и сразу пропадает из выборок;
+        // комментарии, теги и изображение потом удаляет PostPurgeWorker
+        Long[] idArray = new LinkedHashSet<>(ids).toArray(new Long[0]);
+        Set<Long> deleted = new HashSet<>(jdbcTemplate.queryForList(
+            "SELECT id FROM FINAL TABLE (UPDATE posts SET deleted_at = CURRENT_TIMESTAMP " +
+            "WHERE id = ANY(?) AND deleted_at IS NULL)", Long.class, (Object) idArray));
+        if (!deleted.isEmpty()) {
+            writeListener.deleted(deleted);
+        }
+        return deleted;
     }
 
     @Override
     public void delete(Long id) {
-        // TODO: Реализовать каскадное удаление поста
-        // Порядок удаления:
-        // 1. Удалить все комментарии: DELETE FROM comments WHERE post_id = ?
-        // 2. Удалить все связи с тегами: DELETE FROM post_tags WHERE post_id = ?
-        // 3. Удалить изображение: DELETE FROM post_images WHERE post_id = ?
-        // 4. Удалить сам пост: DELETE FROM posts WHERE id = ?
-        // ВАЖНО: Используйте @Transactional в сервисе для атомарности операции!
-        throw new UnsupportedOperationException("TODO: Implement cascade delete");
+        deleteAll(List.of(id));
     }
 
     @Override
-    public void incrementLikes(Long id) {
-        String sql = "UPDATE posts SET likes_count = likes_count + 1 WHERE id = ?";
-        jdbcTemplate.update(sql, id);
+    public int incrementLikes(Long id) {
+        return changeLikes(id, 1);
     }
 
     @Override
-    public void decrementLikes(Long id) {
-        // TODO: Реализовать уменьшение счётчика лайков на 1
-        // Используйте GREATEST(likes_count - 1, 0) чтобы не уйти в минус
-        // Пример SQL: UPDATE posts SET likes_count = GREATEST(likes_count - 1, 0) WHERE id = ?
-        throw new UnsupportedOperationException("TODO: Implement decrementLikes");
+    public int decrementLikes(Long id) {
+        return changeLikes(id, -1);
+    }
+
+    private int changeLikes(Long id, int delta) {
+        if (likeCounterBuffer.isEnabled()) {
+            // Строка поста не блокируется: изменение копится в буфере и
+            // записывается в БД пакетом при очередном сбросе. Значение из БД
+            // читается, только если поста ещё нет в буфере
+            Optional<Integer> likes = likeCounterBuffer.add(id, delta, () -> findLikesCount(id));
+            if (likes.isEmpty()) {
+                return 0;
+            }
+            writeListener.likesBuffered();
+            return likes.get();
+        }
+
+        String sql = "SELECT likes_count FROM FINAL TABLE " +
+                     "(UPDATE posts SET likes_count = GREATEST(likes_count + ?, 0) WHERE id = ? AND deleted_at IS NULL)";
+        List<Integer> counts = jdbcTemplate.queryForList(sql, Integer.class, delta, id);
+        writeListener.likesChanged(id);
+        return counts.isEmpty() ? 0 : counts.get(0);
+    }
+
+    private Optional<Integer> findLikesCount(Long id) {
+        List<Integer> counts = jdbcTemplate.queryForList(
+            "SELECT likes_count FROM posts WHERE id = ? AND deleted_at IS NULL", Integer.class, id);
+        return counts.stream().findFirst();
+    }
+
+    private void applyPendingLikes(List<Post> posts) {
+        if (!likeCounterBuffer.isEnabled()) {
+            return;
+        }
+        for (Post post : posts) {
+            post.setLikesCount(likeCounterBuffer.merge(post.getId(), post.getLikesCount()));
+        }
     }
 
     @Override
     public int getTotalCount(String search) {
-        List<String> tags = new ArrayList<>();
-        String titleSearch = parseSearchQuery(search, tags);
+        return postCountCache.get(search, () -> countMatching(search));
+    }
 
-        StringBuilder sql = new StringBuilder("SELECT COUNT(*) FROM posts p WHERE 1=1");
-        List<Object> params = new ArrayList<>();
+    @Override
+    public Optional<PostRevision> findRevision(Long id) {
+        // Всё, от чего зависит JSON поста; текст и теги меняются вместе с updated_at
+        String sql = "SELECT updated_at, likes_count, comments_count FROM posts WHERE id = ? AND deleted_at IS NULL";
+        List<PostRevision> revisions = jdbcTemplate.query(sql, (rs, rowNum) -> {
+            long updatedAt = rs.getTimestamp("updated_at").getTime();
+            return new PostRevision(updatedAt + "-" +
+                likeCounterBuffer.merge(id, rs.getInt("likes_count")) + "-" +
+                rs.getInt("comments_count"), updatedAt);
+        }, id);
+        return revisions.stream().findFirst();
+    }
 
-        if (titleSearch != null && !titleSearch.isEmpty()) {
-            sql.append(" AND LOWER(p.title) LIKE LOWER(?)");
-            params.add("%" + titleSearch + "%");
-        }
+    @Override
+    public long getContentVersion() {
+        return writeListener.contentVersion();
+    }
 
-        if (!tags.isEmpty()) {
-            for (int i = 0; i < tags.size(); i++) {
-                sql.append(" AND EXISTS (SELECT 1 FROM post_tags pt " +
-                          "JOIN tags t ON pt.tag_id = t.id " +
-                          "WHERE pt.post_id = p.id AND t.name = ?)");
-                params.add(tags.get(i));
-            }
+    private int countMatching(String search) {
+        List<String> tags = new ArrayList<>();
+        String textSearch = parseSearchQuery(search, tags);
+        if (textSearch.isEmpty() && usesTagBitmap(tags)) {
+            return postsWithAllTags(tags).cardinality();
         }
 
+        StringBuilder sql = new StringBuilder("SELECT COUNT(*) FROM post_summary p WHERE 1=1");
+        List<Object> params = new ArrayList<>();
+        appendSearchFilters(search, sql, params);
+
         Integer count = jdbcTemplate.queryForObject(sql.toString(), Integer.class, params.toArray());
         return count != null ? count : 0;
     }
 
     @Override
-    public void saveImage(Long postId, byte[] imageData, String contentType) {
-        String deleteSql = "DELETE FROM post_images WHERE post_id = ?";
-        jdbcTemplate.update(deleteSql, postId);
+    public int repairCommentsCount() {
+        String sql = "UPDATE posts p SET comments_count = " +
+                     "(SELECT COUNT(*) FROM comments c WHERE c.post_id = p.id) " +
+                     "WHERE p.comments_count <> (SELECT COUNT(*) FROM comments c WHERE c.post_id = p.id)";
+        int repaired = jdbcTemplate.update(sql);
+        if (repaired > 0) {
+            writeListener.commentsCountRepaired();
+            log.warn("Repaired comments_count for {} posts", repaired);
+        }
+        return repaired;
+    }
 
-        String insertSql = "INSERT INTO post_images (post_id, image_data, content_type) VALUES (?, ?, ?)";
-        jdbcTemplate.update(insertSql, postId, imageData, contentType);
+    @Override
+    public void saveImage(Long postId, StoredImage image, String contentType) {
+        // Само содержимое уже в хранилище изображений, в БД — только ссылка на него
+        String sql = "MERGE INTO post_images (post_id, content_hash, content_type, size_bytes, image_data, uploaded_at) " +
+                     "KEY (post_id) VALUES (?, ?, ?, ?, NULL, CURRENT_TIMESTAMP)";
+        jdbcTemplate.update(sql, postId, image.getHash(), contentType, image.getSize());
+        writeListener.imageChanged(postId);
+    }
+
+    @Override
+    public Optional<PostImage> findImage(Long postId) {
+        String sql = "SELECT i.post_id, i.content_hash, i.content_type, i.size_bytes, i.uploaded_at FROM post_images i " +
+                     "JOIN posts p ON p.id = i.post_id WHERE i.post_id = ? AND p.deleted_at IS NULL";
+        List<PostImage> images = jdbcTemplate.query(sql, (rs, rowNum) -> {
+            PostImage image = new PostImage(
+                rs.getLong("post_id"),
+                rs.getString("content_hash"),
+                rs.getString("content_type"),
+                rs.getLong("size_bytes")
+            );
+            Timestamp uploadedAt = rs.getTimestamp("uploaded_at");
+            image.setUploadedAt(uploadedAt != null ? uploadedAt.toLocalDateTime() : null);
+            return image;
+        }, postId);
+        return images.stream().findFirst();
+    }
+
+    @Override
+    public boolean isImageReferenced(String contentHash) {
+        // Ссылки удалённых постов тоже считаются: их строки ещё не очищены
+        Boolean referenced = jdbcTemplate.queryForObject(
+            "SELECT EXISTS (SELECT 1 FROM post_images WHERE content_hash = ?)", Boolean.class, contentHash);
+        return Boolean.TRUE.equals(referenced);
     }
 
     @Override
     public Optional<byte[]> getImage(Long postId) {
+        // Изображение, ещё не перенесённое из BLOB в хранилище
         String sql = "SELECT image_data FROM post_images WHERE post_id = ?";
         try {
             byte[] imageData = jdbcTemplate.queryForObject(sql, byte[].class, postId);
@@ -212,41 +704,132 @@ public class PostDaoImpl implements PostDao {
         }
     }
 
-    @Override
-    public Optional<String> getImageContentType(Long postId) {
-        String sql = "SELECT content_type FROM post_images WHERE post_id = ?";
-        try {
-            String contentType = jdbcTemplate.queryForObject(sql, String.class, postId);
-            return Optional.ofNullable(contentType);
-        } catch (Exception e) {
-            return Optional.empty();
+    // Имя тега (без #) -> id в порядке первого упоминания, без повторов
+    private Map<String, Long> resolveTags(List<String> tagNames) {
+        Set<String> names = normalizeTagNames(tagNames);
+        if (names.isEmpty()) {
+            return Map.of();
         }
+        return tagsOf(names, tagDao.upsertAll(names));
     }
 
-    private void saveTags(Long postId, List<String> tagNames) {
+    // Теги пачки постов: одно обращение к словарю на всех; у постов остаются
+    // нормализованные имена, возвращаются id тегов для каждого поста
+    private Map<Long, Collection<Long>> resolveTagLinks(List<Post> posts) {
+        List<Set<String>> namesByPost = new ArrayList<>(posts.size());
+        Set<String> allNames = new LinkedHashSet<>();
+        for (Post post : posts) {
+            Set<String> names = normalizeTagNames(post.getTags() != null ? post.getTags() : List.of());
+            namesByPost.add(names);
+            allNames.addAll(names);
+        }
+        Map<String, Long> tagIds = allNames.isEmpty() ? Map.of() : tagDao.upsertAll(allNames);
+
+        Map<Long, Collection<Long>> links = new LinkedHashMap<>();
+        for (int i = 0; i < posts.size(); i++) {
+            Map<String, Long> tags = tagsOf(namesByPost.get(i), tagIds);
+            links.put(posts.get(i).getId(), tags.values());
+            posts.get(i).setTags(tagNamesInReadOrder(tags));
+        }
+        return links;
+    }
+
+    private static Set<String> normalizeTagNames(List<String> tagNames) {
+        Set<String> names = new LinkedHashSet<>();
         for (String tagName : tagNames) {
             if (tagName == null || tagName.trim().isEmpty()) {
                 continue;
             }
-            
             // Удалить # если есть
-            String cleanTagName = tagName.startsWith("#") ? tagName.substring(1) : tagName;
-            
-            // Найти или создать тег
-            Optional<com.myblog.model.Tag> existingTag = tagDao.findByName(cleanTagName);
-            Long tagId;
-            if (existingTag.isPresent()) {
-                tagId = existingTag.get().getId();
-            } else {
-                com.myblog.model.Tag newTag = tagDao.create(cleanTagName);
-                tagId = newTag.getId();
+            names.add(tagName.startsWith("#") ? tagName.substring(1) : tagName);
+        }
+        return names;
+    }
+
+    private static Map<String, Long> tagsOf(Set<String> names, Map<String, Long> ids) {
+        Map<String, Long> tags = new LinkedHashMap<>();
+        for (String name : names) {
+            tags.put(name, ids.get(name));
+        }
+        return tags;
+    }
+
+    // Теги в том же порядке, в каком их вернёт чтение поста (по id тега)
+    private static List<String> tagNamesInReadOrder(Map<String, Long> tags) {
+        return tags.entrySet().stream()
+            .sorted(Map.Entry.comparingByValue())
+            .map(Map.Entry::getKey)
+            .collect(Collectors.toCollection(ArrayList::new));
+    }
+
+    private void appendSearchFilters(String search, StringBuilder sql, List<Object> params) {
+        List<String> tags = new ArrayList<>();
+        String titleSearch = parseSearchQuery(search, tags);
+
+        if (usesFullTextSearch(titleSearch)) {
+            // Слова ищутся по заголовку и тексту через полнотекстовый индекс
+            sql.append(" AND p.id = ANY(?)");
+            params.add(postSearchIndex.search(titleSearch).toArray(new Long[0]));
+        } else if (titleSearch != null && !titleSearch.isEmpty()) {
+            // Фильтр по подстроке в названии
+            sql.append(" AND LOWER(p.title) LIKE LOWER(?)");
+            params.add("%" + titleSearch + "%");
+        }
+
+        appendTagFilters(tags, sql, params);
+    }
+
+    private void appendTagFilters(List<String> tags, StringBuilder sql, List<Object> params) {
+        if (usesTagBitmap(tags)) {
+            // Пересечение тегов уже посчитано в памяти
+            sql.append(" AND p.id = ANY(?)");
+            params.add(boxed(postsWithAllTags(tags).toArray()));
+            return;
+        }
+
+        // Фильтр по тегам; id тегов берутся из словаря, без JOIN с tags
+        for (String tag : tags) {
+            Optional<Tag> found = tagDao.findByName(tag);
+            if (found.isEmpty()) {
+                sql.append(" AND 1=0");
+                return;
             }
-            
-            // Связать тег с постом
-            tagDao.linkTagToPost(tagId, postId);
+            sql.append(" AND EXISTS (SELECT 1 FROM post_tags pt WHERE pt.post_id = p.id AND pt.tag_id = ?)");
+            params.add(found.get().getId());
         }
     }
 
+    private boolean usesFullTextSearch(String textSearch) {
+        return postSearchIndex.isEnabled() && textSearch != null && !textSearch.isEmpty();
+    }
+
+    private boolean usesTagBitmap(List<String> tags) {
+        return tagBitmapIndex.isEnabled() && !tags.isEmpty();
+    }
+
+    private PostIdBitmap postsWithAllTags(List<String> tags) {
+        List<Long> tagIds = new ArrayList<>(tags.size());
+        for (String tag : tags) {
+            tagIds.add(tagDao.findByName(tag).map(Tag::getId).orElse(null));
+        }
+        return tagBitmapIndex.postsWithAllTags(tagIds);
+    }
+
+    private static Long[] boxed(long[] ids) {
+        Long[] boxed = new Long[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            boxed[i] = ids[i];
+        }
+        return boxed;
+    }
+
+    private static String toPreview(String text) {
+        if (text == null || text.length() <= PREVIEW_LENGTH) {
+            return text;
+        }
+        return text.substring(0, PREVIEW_LENGTH) + "…";
+    }
+
     private String parseSearchQuery(String search, List<String> tags) {
         if (search == null || search.trim().isEmpty()) {
             return "";
@@ -292,5 +875,32 @@ public class PostDaoImpl implements PostDao {
             return post;
         }
     }
-}
 
+    // Имена тегов берутся из словаря, чтобы посты страницы делили одни и те же строки
+    private class PostSummaryRowMapper implements RowMapper<Post> {
+        private final Map<String, String> names = new HashMap<>();
+
+        @Override
+        public Post mapRow(ResultSet rs, int rowNum) throws SQLException {
+            Post post = new Post();
+            post.setId(rs.getLong("id"));
+            post.setTitle(rs.getString("title"));
+            post.setText(rs.getString("preview"));
+            post.setLikesCount(rs.getInt("likes_count"));
+            post.setCommentsCount(rs.getInt("comments_count"));
+            post.setCreatedAt(rs.getTimestamp("created_at").toLocalDateTime());
+            post.setUpdatedAt(rs.getTimestamp("updated_at").toLocalDateTime());
+
+            Array tags = rs.getArray("tags");
+            List<String> tagNames = new ArrayList<>();
+            if (tags != null) {
+                for (Object tag : (Object[]) tags.getArray()) {
+                    tagNames.add(names.computeIfAbsent((String) tag, tagDictionary::canonicalName));
+                }
+                tags.free();
+            }
+            post.setTags(List.copyOf(tagNames));
+            return post;
+        }
+    }
+}
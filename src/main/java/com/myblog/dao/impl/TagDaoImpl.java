@@ -1,9 +1,12 @@
 package com.myblog.dao.impl;
 
 import com.myblog.dao.TagDao;
+import com.myblog.dao.support.TagBitmapIndex;
+import com.myblog.dao.support.TagDictionary;
 import com.myblog.model.Tag;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
@@ -13,17 +16,27 @@ import org.springframework.stereotype.Repository;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 @Repository
 public class TagDaoImpl implements TagDao {
 
     private static final Logger log = LoggerFactory.getLogger(TagDaoImpl.class);
     private final JdbcTemplate jdbcTemplate;
+    private final TagBitmapIndex tagBitmapIndex;
+    private final TagDictionary tagDictionary;
 
-    public TagDaoImpl(JdbcTemplate jdbcTemplate) {
+    public TagDaoImpl(JdbcTemplate jdbcTemplate, TagBitmapIndex tagBitmapIndex, TagDictionary tagDictionary) {
         this.jdbcTemplate = jdbcTemplate;
+        this.tagBitmapIndex = tagBitmapIndex;
+        this.tagDictionary = tagDictionary;
     }
 
     @Override
@@ -38,6 +51,7 @@ public class TagDaoImpl implements TagDao {
         }, keyHolder);
 
         Long tagId = keyHolder.getKey().longValue();
+        tagDictionary.register(tagId, tagName);
         Tag tag = new Tag();
         tag.setId(tagId);
         tag.setName(tagName);
@@ -46,14 +60,21 @@ public class TagDaoImpl implements TagDao {
 
     @Override
     public Optional<Tag> findByName(String name) {
+        Long id = tagDictionary.idOf(name);
+        if (id != null) {
+            return Optional.of(new Tag(id, tagDictionary.nameOf(id)));
+        }
+
+        // Тег мог быть создан в ещё не завершённой транзакции или в обход приложения
         String sql = "SELECT id, name FROM tags WHERE name = ?";
-        try {
-            Tag tag = jdbcTemplate.queryForObject(sql, new TagRowMapper(), name);
-            return Optional.ofNullable(tag);
-        } catch (Exception e) {
+        List<Tag> tags = jdbcTemplate.query(sql, new TagRowMapper(), name);
+        if (tags.isEmpty()) {
             log.debug("Tag not found with name: {}", name);
             return Optional.empty();
         }
+        Tag tag = tags.get(0);
+        tagDictionary.register(tag.getId(), tag.getName());
+        return Optional.of(tag);
     }
 
     @Override
@@ -64,16 +85,163 @@ public class TagDaoImpl implements TagDao {
         return jdbcTemplate.query(sql, new TagRowMapper(), postId);
     }
 
+    @Override
+    public Map<Long, List<String>> findNamesByPostIds(Collection<Long> postIds) {
+        Map<Long, List<String>> tagsByPost = new HashMap<>();
+        if (postIds.isEmpty()) {
+            return tagsByPost;
+        }
+
+        // Один запрос на весь набор постов вместо запроса на каждый пост;
+        // имена берутся из словаря, поэтому все посты делят одни и те же строки
+        String sql = "SELECT post_id, tag_id FROM post_tags WHERE post_id = ANY(?) ORDER BY post_id, tag_id";
+        Map<Long, List<Long>> tagIdsByPost = new HashMap<>();
+        Set<Long> unknown = new HashSet<>();
+        jdbcTemplate.query(sql, rs -> {
+            long tagId = rs.getLong("tag_id");
+            tagIdsByPost.computeIfAbsent(rs.getLong("post_id"), id -> new ArrayList<>()).add(tagId);
+            if (tagDictionary.nameOf(tagId) == null) {
+                unknown.add(tagId);
+            }
+        }, (Object) postIds.toArray(new Long[0]));
+
+        Map<Long, String> unknownNames = new HashMap<>();
+        if (!unknown.isEmpty()) {
+            jdbcTemplate.query("SELECT id, name FROM tags WHERE id = ANY(?)", rs -> {
+                unknownNames.put(rs.getLong("id"), rs.getString("name"));
+                tagDictionary.register(rs.getLong("id"), rs.getString("name"));
+            }, (Object) unknown.toArray(new Long[0]));
+        }
+
+        for (Map.Entry<Long, List<Long>> entry : tagIdsByPost.entrySet()) {
+            List<String> names = new ArrayList<>(entry.getValue().size());
+            for (Long tagId : entry.getValue()) {
+                String name = tagDictionary.nameOf(tagId);
+                names.add(name != null ? name : unknownNames.get(tagId));
+            }
+            tagsByPost.put(entry.getKey(), names);
+        }
+        return tagsByPost;
+    }
+
+    @Override
+    public Map<String, Long> upsertAll(Collection<String> names) {
+        Map<String, Long> ids = new HashMap<>();
+        List<String> unknown = new ArrayList<>();
+        for (String name : names) {
+            Long id = tagDictionary.idOf(name);
+            if (id != null) {
+                ids.put(name, id);
+            } else {
+                unknown.add(name);
+            }
+        }
+        if (unknown.isEmpty()) {
+            return ids;
+        }
+
+        // Недостающие теги создаются одним пакетом, затем id всех читаются одним запросом
+        List<Object[]> batch = new ArrayList<>(unknown.size());
+        for (String name : unknown) {
+            batch.add(new Object[]{name});
+        }
+        try {
+            jdbcTemplate.batchUpdate("MERGE INTO tags (name) KEY (name) VALUES (?)", batch);
+        } catch (DuplicateKeyException e) {
+            // Тот же новый тег одновременно вставила другая транзакция и уже закоммитила;
+            // повторный MERGE найдёт её строку по ключу
+            log.debug("Concurrent insert of tags {}, retrying merge", unknown);
+            jdbcTemplate.batchUpdate("MERGE INTO tags (name) KEY (name) VALUES (?)", batch);
+        }
+
+        jdbcTemplate.query("SELECT id, name FROM tags WHERE name = ANY(?)", rs -> {
+            ids.put(rs.getString("name"), rs.getLong("id"));
+            tagDictionary.register(rs.getLong("id"), rs.getString("name"));
+        }, (Object) unknown.toArray(new String[0]));
+        return ids;
+    }
+
     @Override
     public void linkTagToPost(Long tagId, Long postId) {
         String sql = "INSERT INTO post_tags (post_id, tag_id) VALUES (?, ?)";
         jdbcTemplate.update(sql, postId, tagId);
+        tagBitmapIndex.link(tagId, postId);
+    }
+
+    @Override
+    public void linkTagsToPost(Long postId, Collection<Long> tagIds) {
+        linkAll(Map.of(postId, tagIds));
+    }
+
+    @Override
+    public void linkAll(Map<Long, ? extends Collection<Long>> tagIdsByPost) {
+        // Связи всех постов вставляются одним пакетом
+        List<Object[]> batch = new ArrayList<>();
+        for (Map.Entry<Long, ? extends Collection<Long>> entry : tagIdsByPost.entrySet()) {
+            for (Long tagId : entry.getValue()) {
+                batch.add(new Object[]{entry.getKey(), tagId});
+            }
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        jdbcTemplate.batchUpdate("INSERT INTO post_tags (post_id, tag_id) VALUES (?, ?)", batch);
+        for (Object[] link : batch) {
+            tagBitmapIndex.link((Long) link[1], (Long) link[0]);
+        }
+    }
+
+    @Override
+    public void relinkTags(Long postId, Collection<Long> tagIds) {
+        relinkAll(Map.of(postId, tagIds));
+    }
+
+    @Override
+    public void relinkAll(Map<Long, ? extends Collection<Long>> tagIdsByPost) {
+        if (tagIdsByPost.isEmpty()) {
+            return;
+        }
+
+        // Меняются только связи с добавленными и убранными тегами; текущие связи
+        // всех постов читаются одним запросом
+        Map<Long, Set<Long>> current = new HashMap<>();
+        jdbcTemplate.query("SELECT post_id, tag_id FROM post_tags WHERE post_id = ANY(?)", rs -> {
+            current.computeIfAbsent(rs.getLong("post_id"), id -> new HashSet<>()).add(rs.getLong("tag_id"));
+        }, (Object) tagIdsByPost.keySet().toArray(new Long[0]));
+
+        List<Object[]> removed = new ArrayList<>();
+        Map<Long, List<Long>> added = new HashMap<>();
+        for (Map.Entry<Long, ? extends Collection<Long>> entry : tagIdsByPost.entrySet()) {
+            Long postId = entry.getKey();
+            Set<Long> linked = current.getOrDefault(postId, Set.of());
+            Set<Long> wanted = new HashSet<>(entry.getValue());
+            for (Long tagId : linked) {
+                if (!wanted.contains(tagId)) {
+                    removed.add(new Object[]{postId, tagId});
+                }
+            }
+            for (Long tagId : entry.getValue()) {
+                if (!linked.contains(tagId)) {
+                    added.computeIfAbsent(postId, id -> new ArrayList<>()).add(tagId);
+                }
+            }
+        }
+
+        if (!removed.isEmpty()) {
+            jdbcTemplate.batchUpdate("DELETE FROM post_tags WHERE post_id = ? AND tag_id = ?", removed);
+            for (Object[] link : removed) {
+                tagBitmapIndex.unlink((Long) link[1], (Long) link[0]);
+            }
+        }
+        linkAll(added);
     }
 
     @Override
     public void unlinkAllTagsFromPost(Long postId) {
         String sql = "DELETE FROM post_tags WHERE post_id = ?";
         jdbcTemplate.update(sql, postId);
+        tagBitmapIndex.unlinkPost(postId);
     }
 
     private static class TagRowMapper implements RowMapper<Tag> {
@@ -0,0 +1,36 @@
+package com.myblog.dao.support;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Версия содержимого ленты: растёт при любом изменении постов, лайков и комментариев.
+ * Из неё строится ETag страниц ленты.
+ */
+@Component
+public class ContentVersion {
+
+    // Начинается с текущего времени, чтобы после перезапуска не повторить выданные ETag
+    private final AtomicLong version = new AtomicLong(System.currentTimeMillis());
+
+    public long current() {
+        return version.get();
+    }
+
+    public void bump() {
+        version.incrementAndGet();
+        // Повторить после завершения транзакции: страница, прочитанная до коммита,
+        // не должна получить ETag новой версии
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    version.incrementAndGet();
+                }
+            });
+        }
+    }
+}
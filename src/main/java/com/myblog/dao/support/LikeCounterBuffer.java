@@ -0,0 +1,274 @@
+package com.myblog.dao.support;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Отложенная запись лайков: изменения копятся в памяти и периодически
+ * одним пакетом переносятся в posts.likes_count, поэтому лайки популярного
+ * поста не выстраиваются в очередь на блокировку одной строки.
+ * Для поста с незаписанными лайками буфер хранит и значение из БД, поэтому
+ * читатели видят счётчик целиком до сброса или целиком после, но не смесь.
+ * При штатной остановке приложения накопленное сбрасывается в БД.
+ */
+@Component
+public class LikeCounterBuffer implements InitializingBean, DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(LikeCounterBuffer.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PostCache postCache;
+    private final PostSummaryTable postSummaryTable;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final long flushIntervalMillis;
+
+    private final Map<Long, Counter> counters = new ConcurrentHashMap<>();
+    // Растёт после каждого сброса: значение из БД, прочитанное до него, могло устареть
+    private final AtomicLong flushes = new AtomicLong();
+    private final LongAdder flushedDeltas = new LongAdder();
+    private ScheduledExecutorService scheduler;
+
+    public LikeCounterBuffer(JdbcTemplate jdbcTemplate, PostCache postCache, PostSummaryTable postSummaryTable,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${likes.write-behind.enabled:false}") boolean enabled,
+                             @Value("${likes.write-behind.flush-interval-ms:1000}") long flushIntervalMillis) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.postCache = postCache;
+        this.postSummaryTable = postSummaryTable;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.flushIntervalMillis = flushIntervalMillis;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        if (!enabled) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "likes-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::flushQuietly,
+            flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        if (scheduler == null) {
+            return;
+        }
+        scheduler.shutdown();
+        scheduler.awaitTermination(10, TimeUnit.SECONDS);
+        flush();
+    }
+
+    /**
+     * Изменить счётчик на delta, не опуская ниже нуля. persisted читает значение
+     * из БД, если поста ещё нет в буфере; пустой результат — поста нет.
+     */
+    public Optional<Integer> add(Long postId, int delta, Supplier<Optional<Integer>> persisted) {
+        while (true) {
+            Counter counter = counters.get(postId);
+            if (counter == null) {
+                counter = load(postId, persisted);
+                if (counter == null) {
+                    return Optional.empty();
+                }
+            }
+            synchronized (counter) {
+                if (counter.retired) {
+                    continue;
+                }
+                long next = counter.value() + delta;
+                if (next < 0) {
+                    return Optional.of(0);
+                }
+                counter.pending += delta;
+                return Optional.of((int) next);
+            }
+        }
+    }
+
+    // Значение из БД с учётом ещё не записанных изменений
+    public int merge(Long postId, int persisted) {
+        Counter counter = counters.get(postId);
+        if (counter == null) {
+            return persisted;
+        }
+        synchronized (counter) {
+            return counter.retired ? persisted : (int) counter.value();
+        }
+    }
+
+    public void discard(Long postId) {
+        Counter counter = counters.get(postId);
+        if (counter != null) {
+            retire(postId, counter);
+        }
+    }
+
+    public synchronized int flush() {
+        // Изменения переносятся из pending в flushing до записи: до коммита
+        // читатели видят их в буфере, после — в БД и в persisted
+        List<Object[]> batch = new ArrayList<>();
+        List<Counter> drained = new ArrayList<>();
+        for (Map.Entry<Long, Counter> entry : counters.entrySet()) {
+            Counter counter = entry.getValue();
+            synchronized (counter) {
+                if (counter.retired || counter.pending == 0) {
+                    continue;
+                }
+                counter.flushing = counter.pending;
+                counter.pending = 0;
+                batch.add(new Object[]{counter.flushing, entry.getKey()});
+                drained.add(counter);
+            }
+        }
+
+        if (!batch.isEmpty()) {
+            List<Long> postIds = new ArrayList<>(batch.size());
+            for (Object[] row : batch) {
+                postIds.add((Long) row[1]);
+            }
+            try {
+                // Счётчики в posts и в строках ленты меняются одной транзакцией.
+                // Буфер не даёт значению уйти ниже нуля, так что GREATEST здесь не срабатывает
+                transactionTemplate.executeWithoutResult(status -> {
+                    jdbcTemplate.batchUpdate(
+                        "UPDATE posts SET likes_count = GREATEST(likes_count + ?, 0) WHERE id = ?", batch);
+                    postSummaryTable.syncLikes(postIds);
+                });
+            } catch (RuntimeException e) {
+                for (Counter counter : drained) {
+                    synchronized (counter) {
+                        counter.pending += counter.flushing;
+                        counter.flushing = 0;
+                    }
+                }
+                throw e;
+            }
+            flushes.incrementAndGet();
+            for (Counter counter : drained) {
+                synchronized (counter) {
+                    counter.persisted += counter.flushing;
+                    counter.flushing = 0;
+                }
+            }
+            for (Long postId : postIds) {
+                postCache.invalidate(postId);
+            }
+            flushedDeltas.add(batch.size());
+        }
+
+        // Посты без новых изменений больше не держать в памяти: их значение уже в БД
+        for (Map.Entry<Long, Counter> entry : counters.entrySet()) {
+            Counter counter = entry.getValue();
+            synchronized (counter) {
+                if (counter.pending == 0 && counter.flushing == 0) {
+                    retire(entry.getKey(), counter);
+                }
+            }
+        }
+        return batch.size();
+    }
+
+    public Map<String, Long> stats() {
+        long pendingPosts = 0;
+        long pendingLikes = 0;
+        for (Counter counter : counters.values()) {
+            long sum;
+            synchronized (counter) {
+                sum = counter.pending + counter.flushing;
+            }
+            if (sum != 0) {
+                pendingPosts++;
+                pendingLikes += Math.abs(sum);
+            }
+        }
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("pendingPosts", pendingPosts);
+        stats.put("pendingLikes", pendingLikes);
+        stats.put("flushedRows", flushedDeltas.sum());
+        return stats;
+    }
+
+    private Counter load(Long postId, Supplier<Optional<Integer>> persisted) {
+        long flushesBefore = flushes.get();
+        Optional<Integer> value = persisted.get();
+        if (value.isEmpty()) {
+            return null;
+        }
+        Counter counter = new Counter(value.get());
+        synchronized (counter) {
+            Counter existing = counters.putIfAbsent(postId, counter);
+            if (existing != null) {
+                return existing;
+            }
+            if (flushes.get() != flushesBefore) {
+                // Между чтением и вставкой прошёл сброс: значение могло не включать его
+                retire(postId, counter);
+            }
+        }
+        return counter;
+    }
+
+    private void retire(Long postId, Counter counter) {
+        synchronized (counter) {
+            counter.retired = true;
+            counters.remove(postId, counter);
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (Exception e) {
+            // Изменения остаются в буфере и будут записаны при следующей попытке
+            log.error("Failed to flush pending likes", e);
+        }
+    }
+
+    private static final class Counter {
+        // Значение в БД, изменения в записываемом сейчас пакете и ещё не записанные
+        private long persisted;
+        private long flushing;
+        private long pending;
+        // Убран из буфера; тот, кто успел его получить, должен взять счётчик заново
+        private boolean retired;
+
+        private Counter(long persisted) {
+            this.persisted = persisted;
+        }
+
+        private long value() {
+            return persisted + flushing + pending;
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package com.myblog.dao.support;
+
+import com.myblog.model.Post;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Кэш постов по id перед PostDao.findById: LRU с ограничением по суммарному
+ * размеру текстов и временем жизни записи. Включается свойством posts.cache.enabled.
+ */
+@Component
+public class PostCache {
+
+    // Примерный размер поста без текста, заголовка и тегов
+    private static final int BASE_WEIGHT = 64;
+
+    private final boolean enabled;
+    private final long maxWeight;
+    private final long ttlMillis;
+
+    private final LinkedHashMap<Long, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long weight;
+    // Растёт при каждом сбросе; значение, прочитанное из БД до сброса, в кэш не попадает
+    private final AtomicLong version = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public PostCache(
+            @Value("${posts.cache.enabled:false}") boolean enabled,
+            @Value("${posts.cache.max-weight:16000000}") long maxWeight,
+            @Value("${posts.cache.ttl-seconds:300}") long ttlSeconds) {
+        this.enabled = enabled;
+        this.maxWeight = maxWeight;
+        this.ttlMillis = ttlSeconds * 1000;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public long version() {
+        return version.get();
+    }
+
+    public Optional<Post> get(Long id) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+
+        synchronized (this) {
+            Entry entry = entries.get(id);
+            if (entry != null && entry.expiresAt > System.currentTimeMillis()) {
+                hits.increment();
+                return Optional.of(copy(entry.post));
+            }
+            if (entry != null) {
+                removeEntry(id);
+            }
+        }
+        misses.increment();
+        return Optional.empty();
+    }
+
+    public void put(Post post, long versionAtRead) {
+        if (!enabled) {
+            return;
+        }
+
+        Entry entry = new Entry(copy(post), weigh(post), System.currentTimeMillis() + ttlMillis);
+        if (entry.weight > maxWeight) {
+            return;
+        }
+
+        synchronized (this) {
+            if (version.get() != versionAtRead) {
+                return;
+            }
+            removeEntry(post.getId());
+            entries.put(post.getId(), entry);
+            weight += entry.weight;
+
+            Iterator<Map.Entry<Long, Entry>> eldest = entries.entrySet().iterator();
+            while (weight > maxWeight && eldest.hasNext()) {
+                weight -= eldest.next().getValue().weight;
+                eldest.remove();
+                evictions.increment();
+            }
+        }
+    }
+
+    public void invalidate(Long id) {
+        if (!enabled) {
+            return;
+        }
+
+        evict(id);
+        // Повторить после завершения транзакции: внутри неё пост мог быть
+        // перечитан с незакоммиченными изменениями
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    evict(id);
+                }
+            });
+        }
+    }
+
+    public Map<String, Long> stats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        synchronized (this) {
+            stats.put("size", (long) entries.size());
+            stats.put("weight", weight);
+        }
+        stats.put("hits", hits.sum());
+        stats.put("misses", misses.sum());
+        stats.put("evictions", evictions.sum());
+        return stats;
+    }
+
+    private synchronized void evict(Long id) {
+        version.incrementAndGet();
+        removeEntry(id);
+    }
+
+    private void removeEntry(Long id) {
+        Entry removed = entries.remove(id);
+        if (removed != null) {
+            weight -= removed.weight;
+        }
+    }
+
+    private static long weigh(Post post) {
+        long weight = BASE_WEIGHT;
+        weight += post.getTitle() != null ? post.getTitle().length() : 0;
+        weight += post.getText() != null ? post.getText().length() : 0;
+        if (post.getTags() != null) {
+            for (String tag : post.getTags()) {
+                weight += tag.length();
+            }
+        }
+        return weight;
+    }
+
+    private static Post copy(Post post) {
+        Post copy = new Post(post.getId(), post.getTitle(), post.getText(),
+            post.getTags() != null ? new ArrayList<>(post.getTags()) : null,
+            post.getLikesCount(), post.getCommentsCount());
+        copy.setCreatedAt(post.getCreatedAt());
+        copy.setUpdatedAt(post.getUpdatedAt());
+        return copy;
+    }
+
+    private static final class Entry {
+        private final Post post;
+        private final long weight;
+        private final long expiresAt;
+
+        private Entry(Post post, long weight, long expiresAt) {
+            this.post = post;
+            this.weight = weight;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.myblog.dao.support;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntSupplier;
+
+/**
+ * Кэш количества постов по строке поиска (для lastPage).
+ * Любое изменение постов или их тегов сбрасывает кэш целиком.
+ */
+@Component
+public class PostCountCache {
+
+    private final boolean enabled;
+    private final int maxSize;
+    private final Map<String, Entry> counts = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+
+    public PostCountCache(
+            @Value("${posts.count-cache.enabled:false}") boolean enabled,
+            @Value("${posts.count-cache.max-size:1000}") int maxSize) {
+        this.enabled = enabled;
+        this.maxSize = maxSize;
+    }
+
+    public int get(String search, IntSupplier loader) {
+        if (!enabled) {
+            return loader.getAsInt();
+        }
+
+        String key = normalize(search);
+        long currentGeneration = generation.get();
+        Entry entry = counts.get(key);
+        if (entry != null && entry.generation == currentGeneration) {
+            return entry.count;
+        }
+
+        int count = loader.getAsInt();
+        if (counts.size() >= maxSize) {
+            counts.clear();
+        }
+        // Значение, посчитанное до сброса, получит устаревшее поколение и не будет использовано
+        counts.put(key, new Entry(currentGeneration, count));
+        return count;
+    }
+
+    public void invalidate() {
+        if (!enabled) {
+            return;
+        }
+
+        reset();
+        // Повторный сброс после завершения транзакции: иначе параллельный запрос
+        // успеет закэшировать количество, посчитанное до коммита
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    reset();
+                }
+            });
+        }
+    }
+
+    private void reset() {
+        generation.incrementAndGet();
+        counts.clear();
+    }
+
+    private static String normalize(String search) {
+        return search == null ? "" : search.trim().replaceAll("\\s+", " ");
+    }
+
+    private static final class Entry {
+        private final long generation;
+        private final int count;
+
+        private Entry(long generation, int count) {
+            this.generation = generation;
+            this.count = count;
+        }
+    }
+}
@@ -0,0 +1,289 @@
+package com.myblog.dao.support;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Сжатое множество id постов (по схеме Roaring bitmap): id делятся на блоки
+ * по старшим битам, разреженный блок хранится отсортированным массивом,
+ * плотный — битовой картой на 65536 значений.
+ * Класс не потокобезопасен.
+ */
+public final class PostIdBitmap {
+
+    private static final int ARRAY_LIMIT = 4096;
+
+    private final TreeMap<Long, Container> containers = new TreeMap<>();
+
+    public void add(long id) {
+        long key = id >>> 16;
+        Container container = containers.get(key);
+        if (container == null) {
+            container = new ArrayContainer();
+        }
+        containers.put(key, container.add((char) id));
+    }
+
+    public void remove(long id) {
+        long key = id >>> 16;
+        Container container = containers.get(key);
+        if (container == null) {
+            return;
+        }
+        Container updated = container.remove((char) id);
+        if (updated.cardinality() == 0) {
+            containers.remove(key);
+        } else {
+            containers.put(key, updated);
+        }
+    }
+
+    public boolean contains(long id) {
+        Container container = containers.get(id >>> 16);
+        return container != null && container.contains((char) id);
+    }
+
+    public boolean isEmpty() {
+        return containers.isEmpty();
+    }
+
+    public int cardinality() {
+        int cardinality = 0;
+        for (Container container : containers.values()) {
+            cardinality += container.cardinality();
+        }
+        return cardinality;
+    }
+
+    public PostIdBitmap and(PostIdBitmap other) {
+        PostIdBitmap result = new PostIdBitmap();
+        for (Map.Entry<Long, Container> entry : containers.entrySet()) {
+            Container otherContainer = other.containers.get(entry.getKey());
+            if (otherContainer == null) {
+                continue;
+            }
+            Container intersection = entry.getValue().and(otherContainer);
+            if (intersection.cardinality() > 0) {
+                result.containers.put(entry.getKey(), intersection);
+            }
+        }
+        return result;
+    }
+
+    public PostIdBitmap copy() {
+        PostIdBitmap copy = new PostIdBitmap();
+        for (Map.Entry<Long, Container> entry : containers.entrySet()) {
+            copy.containers.put(entry.getKey(), entry.getValue().copy());
+        }
+        return copy;
+    }
+
+    // id по убыванию, начиная с позиции offset
+    public List<Long> descending(int offset, int limit) {
+        List<Long> ids = new ArrayList<>(Math.min(limit, ARRAY_LIMIT));
+        int skipped = 0;
+        for (Map.Entry<Long, Container> entry : containers.descendingMap().entrySet()) {
+            Container container = entry.getValue();
+            if (skipped + container.cardinality() <= offset) {
+                skipped += container.cardinality();
+                continue;
+            }
+            long high = entry.getKey() << 16;
+            char[] values = container.toArray();
+            for (int i = values.length - 1; i >= 0; i--) {
+                if (skipped++ < offset) {
+                    continue;
+                }
+                if (ids.size() == limit) {
+                    return ids;
+                }
+                ids.add(high | values[i]);
+            }
+        }
+        return ids;
+    }
+
+    public long[] toArray() {
+        long[] ids = new long[cardinality()];
+        int position = 0;
+        for (Map.Entry<Long, Container> entry : containers.entrySet()) {
+            long high = entry.getKey() << 16;
+            for (char low : entry.getValue().toArray()) {
+                ids[position++] = high | low;
+            }
+        }
+        return ids;
+    }
+
+    private interface Container {
+        Container add(char value);
+        Container remove(char value);
+        boolean contains(char value);
+        int cardinality();
+        Container and(Container other);
+        char[] toArray();
+        Container copy();
+    }
+
+    private static final class ArrayContainer implements Container {
+        private char[] values = new char[4];
+        private int size;
+
+        @Override
+        public Container add(char value) {
+            int index = Arrays.binarySearch(values, 0, size, value);
+            if (index >= 0) {
+                return this;
+            }
+            if (size == ARRAY_LIMIT) {
+                return toBitmap().add(value);
+            }
+            int insertAt = -index - 1;
+            if (size == values.length) {
+                values = Arrays.copyOf(values, Math.min(values.length * 2, ARRAY_LIMIT));
+            }
+            System.arraycopy(values, insertAt, values, insertAt + 1, size - insertAt);
+            values[insertAt] = value;
+            size++;
+            return this;
+        }
+
+        @Override
+        public Container remove(char value) {
+            int index = Arrays.binarySearch(values, 0, size, value);
+            if (index >= 0) {
+                System.arraycopy(values, index + 1, values, index, size - index - 1);
+                size--;
+            }
+            return this;
+        }
+
+        @Override
+        public boolean contains(char value) {
+            return Arrays.binarySearch(values, 0, size, value) >= 0;
+        }
+
+        @Override
+        public int cardinality() {
+            return size;
+        }
+
+        @Override
+        public Container and(Container other) {
+            ArrayContainer result = new ArrayContainer();
+            result.values = new char[Math.max(size, 1)];
+            for (int i = 0; i < size; i++) {
+                if (other.contains(values[i])) {
+                    result.values[result.size++] = values[i];
+                }
+            }
+            return result;
+        }
+
+        @Override
+        public char[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+
+        @Override
+        public Container copy() {
+            ArrayContainer copy = new ArrayContainer();
+            copy.values = Arrays.copyOf(values, Math.max(size, 1));
+            copy.size = size;
+            return copy;
+        }
+
+        private BitmapContainer toBitmap() {
+            BitmapContainer bitmap = new BitmapContainer();
+            for (int i = 0; i < size; i++) {
+                bitmap.add(values[i]);
+            }
+            return bitmap;
+        }
+    }
+
+    private static final class BitmapContainer implements Container {
+        private final long[] words = new long[1024];
+        private int cardinality;
+
+        @Override
+        public Container add(char value) {
+            long mask = 1L << value;
+            int word = value >>> 6;
+            if ((words[word] & mask) == 0) {
+                words[word] |= mask;
+                cardinality++;
+            }
+            return this;
+        }
+
+        @Override
+        public Container remove(char value) {
+            long mask = 1L << value;
+            int word = value >>> 6;
+            if ((words[word] & mask) != 0) {
+                words[word] &= ~mask;
+                cardinality--;
+            }
+            return cardinality <= ARRAY_LIMIT / 2 ? toArrayContainer() : this;
+        }
+
+        @Override
+        public boolean contains(char value) {
+            return (words[value >>> 6] & (1L << value)) != 0;
+        }
+
+        @Override
+        public int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        public Container and(Container other) {
+            if (other instanceof BitmapContainer bitmap) {
+                BitmapContainer result = new BitmapContainer();
+                for (int i = 0; i < words.length; i++) {
+                    result.words[i] = words[i] & bitmap.words[i];
+                    result.cardinality += Long.bitCount(result.words[i]);
+                }
+                return result.cardinality <= ARRAY_LIMIT ? result.toArrayContainer() : result;
+            }
+            return other.and(this);
+        }
+
+        @Override
+        public char[] toArray() {
+            char[] values = new char[cardinality];
+            int position = 0;
+            for (int i = 0; i < words.length; i++) {
+                long word = words[i];
+                while (word != 0) {
+                    values[position++] = (char) ((i << 6) + Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+            return values;
+        }
+
+        @Override
+        public Container copy() {
+            BitmapContainer copy = new BitmapContainer();
+            System.arraycopy(words, 0, copy.words, 0, words.length);
+            copy.cardinality = cardinality;
+            return copy;
+        }
+
+        private ArrayContainer toArrayContainer() {
+            ArrayContainer array = new ArrayContainer();
+            array.values = toArray();
+            array.size = array.values.length;
+            if (array.values.length == 0) {
+                array.values = new char[4];
+            }
+            return array;
+        }
+    }
+}
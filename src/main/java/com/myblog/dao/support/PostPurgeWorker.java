@@ -0,0 +1,133 @@
+package com.myblog.dao.support;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Фоновая очистка постов, помеченных удалёнными (deleted_at). Комментарии,
+ * связи с тегами и изображение удаляются порциями по batch-size строк, каждая
+ * порция — отдельной короткой транзакцией, затем удаляется сам пост.
+ * Файлы изображений не трогаются: они адресуются хэшем и могут быть общими.
+ */
+@Component
+public class PostPurgeWorker implements InitializingBean, DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(PostPurgeWorker.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+    private final long intervalMillis;
+    private final int batchSize;
+    private final int postsPerRun;
+
+    private final LongAdder purgedPosts = new LongAdder();
+    private final LongAdder purgedRows = new LongAdder();
+    private final LongAdder failedRuns = new LongAdder();
+    private ScheduledExecutorService scheduler;
+
+    public PostPurgeWorker(JdbcTemplate jdbcTemplate,
+                           @Value("${posts.purge.enabled:false}") boolean enabled,
+                           @Value("${posts.purge.interval-ms:5000}") long intervalMillis,
+                           @Value("${posts.purge.batch-size:500}") int batchSize,
+                           @Value("${posts.purge.posts-per-run:100}") int postsPerRun) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+        this.intervalMillis = intervalMillis;
+        this.batchSize = batchSize;
+        this.postsPerRun = postsPerRun;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        if (!enabled) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "posts-purge");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::purgeQuietly,
+            intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        if (scheduler == null) {
+            return;
+        }
+        scheduler.shutdown();
+        scheduler.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    public synchronized int purge() {
+        List<Long> ids = jdbcTemplate.queryForList(
+            "SELECT id FROM posts WHERE deleted_at IS NOT NULL ORDER BY deleted_at, id FETCH FIRST ? ROWS ONLY",
+            Long.class, postsPerRun);
+
+        int purged = 0;
+        for (Long id : ids) {
+            long rows = deleteInBatches("comments", id)
+                + deleteInBatches("post_tags", id)
+                + deleteInBatches("post_images", id);
+            rows += jdbcTemplate.update("DELETE FROM posts WHERE id = ? AND deleted_at IS NOT NULL", id);
+            purgedRows.add(rows);
+            purged++;
+        }
+        purgedPosts.add(purged);
+        if (purged > 0) {
+            log.debug("Purged {} deleted posts", purged);
+        }
+        return purged;
+    }
+
+    public Map<String, Long> stats() {
+        Long backlog = jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM posts WHERE deleted_at IS NOT NULL", Long.class);
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("backlogPosts", backlog != null ? backlog : 0);
+        stats.put("purgedPosts", purgedPosts.sum());
+        stats.put("purgedRows", purgedRows.sum());
+        stats.put("failedRuns", failedRuns.sum());
+        return stats;
+    }
+
+    private long deleteInBatches(String table, Long postId) {
+        String sql = "DELETE FROM " + table + " WHERE post_id = ? FETCH FIRST ? ROWS ONLY";
+        long total = 0;
+        int deleted;
+        do {
+            deleted = jdbcTemplate.update(sql, postId, batchSize);
+            total += deleted;
+        } while (deleted == batchSize);
+        return total;
+    }
+
+    private void purgeQuietly() {
+        try {
+            // Пока есть очередь — продолжать без паузы, но не дольше одного интервала
+            long deadline = System.currentTimeMillis() + intervalMillis;
+            int purged;
+            do {
+                purged = purge();
+            } while (purged == postsPerRun && System.currentTimeMillis() < deadline);
+        } catch (Exception e) {
+            // Оставшиеся посты будут очищены при следующем запуске
+            failedRuns.increment();
+            log.error("Failed to purge deleted posts", e);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.myblog.dao.support;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+
+/**
+ * Таблица post_summary — готовые строки ленты: заголовок, превью, имена тегов
+ * и счётчики. Обновляется в той же транзакции, что и изменения постов,
+ * комментариев, лайков и тегов, поэтому лента читается одним проходом по индексу.
+ * Помеченные удалёнными посты в таблице не хранятся.
+ */
+@Component
+public class PostSummaryTable {
+
+    private static final String REFRESH_SQL =
+        "MERGE INTO post_summary (id, title, preview, tags, likes_count, comments_count, created_at, updated_at) " +
+        "KEY (id) SELECT p.id, p.title, p.preview, " +
+        "(SELECT ARRAY_AGG(t.name ORDER BY t.id) FROM post_tags pt JOIN tags t ON t.id = pt.tag_id " +
+        "WHERE pt.post_id = p.id), COALESCE(p.likes_count, 0), p.comments_count, p.created_at, p.updated_at " +
+        "FROM posts p WHERE p.id = ANY(?) AND p.deleted_at IS NULL";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public PostSummaryTable(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // Пересобрать строки постов целиком после создания, изменения или смены тегов
+    public void refresh(Collection<Long> postIds) {
+        if (postIds.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.update(REFRESH_SQL, (Object) postIds.toArray(new Long[0]));
+    }
+
+    public void remove(Collection<Long> postIds) {
+        if (postIds.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.update("DELETE FROM post_summary WHERE id = ANY(?)", (Object) postIds.toArray(new Long[0]));
+    }
+
+    public void addComments(Long postId, int delta) {
+        jdbcTemplate.update("UPDATE post_summary SET comments_count = comments_count + ? WHERE id = ?",
+            delta, postId);
+    }
+
+    // Лайки копируются из posts уже посчитанными, чтобы не повторять GREATEST
+    public void syncLikes(Collection<Long> postIds) {
+        if (postIds.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.update("UPDATE post_summary s SET likes_count = " +
+            "(SELECT COALESCE(p.likes_count, 0) FROM posts p WHERE p.id = s.id) WHERE s.id = ANY(?)",
+            (Object) postIds.toArray(new Long[0]));
+    }
+
+    public int syncCommentsCount() {
+        return jdbcTemplate.update("UPDATE post_summary s SET comments_count = " +
+            "(SELECT p.comments_count FROM posts p WHERE p.id = s.id) " +
+            "WHERE s.comments_count <> (SELECT p.comments_count FROM posts p WHERE p.id = s.id)");
+    }
+}
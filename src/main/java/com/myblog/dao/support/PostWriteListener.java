@@ -0,0 +1,116 @@
+package com.myblog.dao.support;
+
+import com.myblog.model.Post;
+import com.myblog.search.PostSearchIndex;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Всё, что нужно обновить после записи поста, кроме самих таблиц posts и post_tags:
+ * post_summary, полнотекстовый индекс, битовые карты тегов, кэши и версию ленты.
+ * DAO вызывают его внутри своей транзакции. post_summary меняется в ней же;
+ * структуры в памяти сами разбираются с завершением транзакции — кэши сбрасываются
+ * ещё раз после неё, индексы при откате перечитывают посты из БД (RollbackRefresh),
+ * а то, что восстановить нельзя, выполняется только после коммита (AfterCommit).
+ */
+@Component
+public class PostWriteListener {
+
+    private final PostSummaryTable postSummaryTable;
+    private final PostSearchIndex postSearchIndex;
+    private final TagBitmapIndex tagBitmapIndex;
+    private final PostCache postCache;
+    private final PostCountCache postCountCache;
+    private final TransactionTagMemo tagMemo;
+    private final LikeCounterBuffer likeCounterBuffer;
+    private final ContentVersion contentVersion;
+
+    public PostWriteListener(PostSummaryTable postSummaryTable, PostSearchIndex postSearchIndex,
+                             TagBitmapIndex tagBitmapIndex, PostCache postCache, PostCountCache postCountCache,
+                             TransactionTagMemo tagMemo, LikeCounterBuffer likeCounterBuffer,
+                             ContentVersion contentVersion) {
+        this.postSummaryTable = postSummaryTable;
+        this.postSearchIndex = postSearchIndex;
+        this.tagBitmapIndex = tagBitmapIndex;
+        this.postCache = postCache;
+        this.postCountCache = postCountCache;
+        this.tagMemo = tagMemo;
+        this.likeCounterBuffer = likeCounterBuffer;
+        this.contentVersion = contentVersion;
+    }
+
+    public long contentVersion() {
+        return contentVersion.current();
+    }
+
+    // Посты уже вставлены вместе со связями с тегами
+    public void created(Collection<Post> posts) {
+        List<Long> ids = new ArrayList<>(posts.size());
+        for (Post post : posts) {
+            ids.add(post.getId());
+            postSearchIndex.index(post.getId(), post.getTitle(), post.getText());
+        }
+        postSummaryTable.refresh(ids);
+        postCountCache.invalidate();
+        contentVersion.bump();
+    }
+
+    // Изменены заголовок, текст или теги
+    public void updated(Collection<Post> posts) {
+        List<Long> ids = new ArrayList<>(posts.size());
+        for (Post post : posts) {
+            ids.add(post.getId());
+            postCache.invalidate(post.getId());
+            tagMemo.evict(post.getId());
+            postSearchIndex.index(post.getId(), post.getTitle(), post.getText());
+        }
+        postSummaryTable.refresh(ids);
+        postCountCache.invalidate();
+        contentVersion.bump();
+    }
+
+    // Посты помечены удалёнными
+    public void deleted(Set<Long> ids) {
+        postSummaryTable.remove(ids);
+        postCountCache.invalidate();
+        for (Long id : ids) {
+            postSearchIndex.delete(id);
+            tagBitmapIndex.unlinkPost(id);
+            postCache.invalidate(id);
+        }
+        // Неучтённые лайки восстановить нечем, поэтому они отбрасываются только после коммита
+        AfterCommit.run(() -> ids.forEach(likeCounterBuffer::discard));
+        contentVersion.bump();
+    }
+
+    // likes_count поста изменён прямо в posts, без буфера
+    public void likesChanged(Long postId) {
+        postSummaryTable.syncLikes(List.of(postId));
+        postCache.invalidate(postId);
+        contentVersion.bump();
+    }
+
+    // Лайк учтён в буфере; в БД он попадёт при сбросе
+    public void likesBuffered() {
+        contentVersion.bump();
+    }
+
+    public void commentsChanged(Long postId, int delta) {
+        postSummaryTable.addComments(postId, delta);
+        postCache.invalidate(postId);
+        contentVersion.bump();
+    }
+
+    public void commentsCountRepaired() {
+        postSummaryTable.syncCommentsCount();
+        contentVersion.bump();
+    }
+
+    public void imageChanged(Long postId) {
+        postCache.invalidate(postId);
+    }
+}
@@ -0,0 +1,42 @@
+package com.myblog.dao.support;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Для индексов в памяти, которые меняются сразу при записи: запоминает id постов,
+ * затронутых текущей транзакцией, и при её откате передаёт их на перечитывание из БД.
+ */
+public final class RollbackRefresh {
+
+    private RollbackRefresh() {
+    }
+
+    public static void track(Object owner, Long postId, Consumer<Set<Long>> refresh) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+
+        @SuppressWarnings("unchecked")
+        Set<Long> touched = (Set<Long>) TransactionSynchronizationManager.getResource(owner);
+        if (touched == null) {
+            Set<Long> ids = new HashSet<>();
+            touched = ids;
+            TransactionSynchronizationManager.bindResource(owner, ids);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(owner);
+                    if (status != STATUS_COMMITTED) {
+                        refresh.accept(ids);
+                    }
+                }
+            });
+        }
+        touched.add(postId);
+    }
+}
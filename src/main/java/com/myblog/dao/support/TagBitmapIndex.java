@@ -0,0 +1,164 @@
+package com.myblog.dao.support;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Для каждого тега — битовая карта id постов с этим тегом.
+ * Пересечение тегов из поиска и его размер считаются в памяти, без подзапросов к post_tags.
+ */
+@Component
+public class TagBitmapIndex implements InitializingBean {
+
+    private static final Logger log = LoggerFactory.getLogger(TagBitmapIndex.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+    private final Map<Long, PostIdBitmap> postsByTag = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public TagBitmapIndex(JdbcTemplate jdbcTemplate,
+                          @Value("${search.tag-bitmap.enabled:true}") boolean enabled) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        if (enabled) {
+            rebuild();
+        }
+    }
+
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            postsByTag.clear();
+            // Связи помеченных удалёнными постов остаются до очистки, но в индекс не попадают
+            jdbcTemplate.query("SELECT pt.tag_id, pt.post_id FROM post_tags pt " +
+                               "JOIN posts p ON p.id = pt.post_id WHERE p.deleted_at IS NULL", rs -> {
+                add(rs.getLong("tag_id"), rs.getLong("post_id"));
+            });
+            log.info("Tag bitmap index rebuilt: {} tags", postsByTag.size());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void link(Long tagId, Long postId) {
+        if (!enabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            add(tagId, postId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        RollbackRefresh.track(this, postId, this::refresh);
+    }
+
+    public void unlink(Long tagId, Long postId) {
+        if (!enabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            PostIdBitmap bitmap = postsByTag.get(tagId);
+            if (bitmap != null) {
+                bitmap.remove(postId);
+                if (bitmap.isEmpty()) {
+                    postsByTag.remove(tagId);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        RollbackRefresh.track(this, postId, this::refresh);
+    }
+
+    public void unlinkPost(Long postId) {
+        if (!enabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            removePost(postId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        RollbackRefresh.track(this, postId, this::refresh);
+    }
+
+    // Посты, у которых есть все перечисленные теги; null в списке — неизвестный тег
+    public PostIdBitmap postsWithAllTags(Collection<Long> tagIds) {
+        lock.readLock().lock();
+        try {
+            List<PostIdBitmap> bitmaps = new ArrayList<>(tagIds.size());
+            for (Long tagId : tagIds) {
+                PostIdBitmap bitmap = tagId != null ? postsByTag.get(tagId) : null;
+                if (bitmap == null) {
+                    return new PostIdBitmap();
+                }
+                bitmaps.add(bitmap);
+            }
+            if (bitmaps.isEmpty()) {
+                return new PostIdBitmap();
+            }
+
+            // Начинать с самого редкого тега, чтобы промежуточные результаты были меньше
+            bitmaps.sort(Comparator.comparingInt(PostIdBitmap::cardinality));
+            PostIdBitmap result = bitmaps.get(0).copy();
+            for (int i = 1; i < bitmaps.size() && !result.isEmpty(); i++) {
+                result = result.and(bitmaps.get(i));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void add(long tagId, long postId) {
+        postsByTag.computeIfAbsent(tagId, id -> new PostIdBitmap()).add(postId);
+    }
+
+    private void removePost(long postId) {
+        postsByTag.values().removeIf(bitmap -> {
+            bitmap.remove(postId);
+            return bitmap.isEmpty();
+        });
+    }
+
+    private void refresh(Set<Long> postIds) {
+        lock.writeLock().lock();
+        try {
+            for (Long postId : postIds) {
+                removePost(postId);
+            }
+            jdbcTemplate.query("SELECT pt.tag_id, pt.post_id FROM post_tags pt JOIN posts p ON p.id = pt.post_id " +
+                               "WHERE pt.post_id = ANY(?) AND p.deleted_at IS NULL", rs -> {
+                add(rs.getLong("tag_id"), rs.getLong("post_id"));
+            }, (Object) postIds.toArray(new Long[0]));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.myblog.dao.support;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Словарь тегов имя <-> id в памяти, загружается при старте. Имя каждого тега
+ * хранится в одном экземпляре String, который получают все посты с этим тегом.
+ * Теги попадают в словарь только после коммита транзакции, в которой их прочитали или создали.
+ */
+@Component
+public class TagDictionary implements InitializingBean {
+
+    private static final Logger log = LoggerFactory.getLogger(TagDictionary.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Map<String, Long> idsByName = new ConcurrentHashMap<>();
+    private final Map<Long, String> namesById = new ConcurrentHashMap<>();
+
+    public TagDictionary(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        jdbcTemplate.query("SELECT id, name FROM tags", rs -> {
+            put(rs.getLong("id"), rs.getString("name"));
+        });
+        log.info("Tag dictionary loaded: {} tags", namesById.size());
+    }
+
+    public Long idOf(String name) {
+        return idsByName.get(name);
+    }
+
+    public String nameOf(Long id) {
+        return namesById.get(id);
+    }
+
+    // Экземпляр имени из словаря; незнакомое имя возвращается как есть
+    public String canonicalName(String name) {
+        Long id = idsByName.get(name);
+        String canonical = id != null ? namesById.get(id) : null;
+        return canonical != null ? canonical : name;
+    }
+
+    public void register(Long id, String name) {
+        if (namesById.containsKey(id)) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            put(id, name);
+            return;
+        }
+        // При откате тег с этим id может так и не появиться в БД
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                put(id, name);
+            }
+        });
+    }
+
+    public int size() {
+        return namesById.size();
+    }
+
+    private void put(Long id, String name) {
+        String canonical = namesById.putIfAbsent(id, name);
+        idsByName.putIfAbsent(canonical != null ? canonical : name, id);
+    }
+}
@@ -0,0 +1,88 @@
+package com.myblog.dao.support;
+
+import com.myblog.dao.TagDao;
+import com.myblog.model.Post;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Теги постов, запомненные на время транзакции. Каждый вызов loadTags
+ * загружает недостающие теги своего набора постов одним запросом, а уже
+ * загруженные в этой транзакции берёт из памяти. Вызовы между собой
+ * не объединяются: два разных набора — два запроса.
+ */
+@Component
+public class TransactionTagMemo {
+
+    private final TagDao tagDao;
+
+    public TransactionTagMemo(TagDao tagDao) {
+        this.tagDao = tagDao;
+    }
+
+    public void loadTags(Collection<Post> posts) {
+        if (posts.isEmpty()) {
+            return;
+        }
+
+        Map<Long, List<String>> loaded = currentScope();
+        Set<Long> missing = new LinkedHashSet<>();
+        for (Post post : posts) {
+            if (!loaded.containsKey(post.getId())) {
+                missing.add(post.getId());
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            Map<Long, List<String>> fetched = tagDao.findNamesByPostIds(missing);
+            for (Long postId : missing) {
+                loaded.put(postId, List.copyOf(fetched.getOrDefault(postId, List.of())));
+            }
+        }
+
+        for (Post post : posts) {
+            post.setTags(loaded.get(post.getId()));
+        }
+    }
+
+    public void evict(Long postId) {
+        Map<Long, List<String>> loaded = boundScope();
+        if (loaded != null) {
+            loaded.remove(postId);
+        }
+    }
+
+    private Map<Long, List<String>> currentScope() {
+        Map<Long, List<String>> loaded = boundScope();
+        if (loaded != null) {
+            return loaded;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            // Вне транзакции запоминать нечего — кэш живёт только до конца вызова
+            return new HashMap<>();
+        }
+
+        Map<Long, List<String>> scope = new HashMap<>();
+        TransactionSynchronizationManager.bindResource(this, scope);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(TransactionTagMemo.this);
+            }
+        });
+        return scope;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<Long, List<String>> boundScope() {
+        return (Map<Long, List<String>>) TransactionSynchronizationManager.getResource(this);
+    }
+}
@@ -0,0 +1,35 @@
+package com.myblog.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.myblog.model.Comment;
+import java.util.List;
+
+public class CommentPageResponse {
+    private List<Comment> comments;
+    private boolean hasNext;
+    private int totalCount;
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String nextCursor;
+
+    public CommentPageResponse() {}
+
+    public CommentPageResponse(List<Comment> comments, boolean hasNext, int totalCount, String nextCursor) {
+        this.comments = comments;
+        this.hasNext = hasNext;
+        this.totalCount = totalCount;
+        this.nextCursor = nextCursor;
+    }
+
+    // Getters
+    public List<Comment> getComments() { return comments; }
+    public boolean isHasNext() { return hasNext; }
+    public int getTotalCount() { return totalCount; }
+    public String getNextCursor() { return nextCursor; }
+
+    // Setters
+    public void setComments(List<Comment> comments) { this.comments = comments; }
+    public void setHasNext(boolean hasNext) { this.hasNext = hasNext; }
+    public void setTotalCount(int totalCount) { this.totalCount = totalCount; }
+    public void setNextCursor(String nextCursor) { this.nextCursor = nextCursor; }
+}
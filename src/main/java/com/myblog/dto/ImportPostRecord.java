@@ -0,0 +1,30 @@
+package com.myblog.dto;
+
+import com.fasterxml.jackson.annotation.JsonAlias;
+import java.util.List;
+
+// Одна строка NDJSON для POST /posts/import; понимает и строки выгрузки GET /posts/export
+public class ImportPostRecord {
+    private String title;
+    private String text;
+    private List<String> tags;
+    @JsonAlias("likesCount")
+    private Integer likes;
+    private String image;
+
+    public ImportPostRecord() {}
+
+    // Getters
+    public String getTitle() { return title; }
+    public String getText() { return text; }
+    public List<String> getTags() { return tags; }
+    public Integer getLikes() { return likes; }
+    public String getImage() { return image; }
+
+    // Setters
+    public void setTitle(String title) { this.title = title; }
+    public void setText(String text) { this.text = text; }
+    public void setTags(List<String> tags) { this.tags = tags; }
+    public void setLikes(Integer likes) { this.likes = likes; }
+    public void setImage(String image) { this.image = image; }
+}
@@ -0,0 +1,29 @@
+package com.myblog.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class ImportReport {
+    private long imported;
+    private long failed;
+    private long elapsedMillis;
+    private long rowsPerSecond;
+    // Только первые ошибки; остальные учитываются в failed
+    private List<String> errors = new ArrayList<>();
+
+    public ImportReport() {}
+
+    // Getters
+    public long getImported() { return imported; }
+    public long getFailed() { return failed; }
+    public long getElapsedMillis() { return elapsedMillis; }
+    public long getRowsPerSecond() { return rowsPerSecond; }
+    public List<String> getErrors() { return errors; }
+
+    // Setters
+    public void setImported(long imported) { this.imported = imported; }
+    public void setFailed(long failed) { this.failed = failed; }
+    public void setElapsedMillis(long elapsedMillis) { this.elapsedMillis = elapsedMillis; }
+    public void setRowsPerSecond(long rowsPerSecond) { this.rowsPerSecond = rowsPerSecond; }
+    public void setErrors(List<String> errors) { this.errors = errors; }
+}
@@ -0,0 +1,40 @@
+package com.myblog.dto;
+
+import java.util.List;
+
+// Одна операция POST /posts/batch: op = create, update или delete
+public class PostBatchOperation {
+    public static final String CREATE = "create";
+    public static final String UPDATE = "update";
+    public static final String DELETE = "delete";
+
+    private String op;
+    private Long id;
+    private String title;
+    private String text;
+    private List<String> tags;
+
+    public PostBatchOperation() {}
+
+    public PostBatchOperation(String op, Long id, String title, String text, List<String> tags) {
+        this.op = op;
+        this.id = id;
+        this.title = title;
+        this.text = text;
+        this.tags = tags;
+    }
+
+    // Getters
+    public String getOp() { return op; }
+    public Long getId() { return id; }
+    public String getTitle() { return title; }
+    public String getText() { return text; }
+    public List<String> getTags() { return tags; }
+
+    // Setters
+    public void setOp(String op) { this.op = op; }
+    public void setId(Long id) { this.id = id; }
+    public void setTitle(String title) { this.title = title; }
+    public void setText(String text) { this.text = text; }
+    public void setTags(List<String> tags) { this.tags = tags; }
+}
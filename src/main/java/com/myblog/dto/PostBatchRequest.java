@@ -0,0 +1,19 @@
+package com.myblog.dto;
+
+import java.util.List;
+
+public class PostBatchRequest {
+    private List<PostBatchOperation> operations;
+
+    public PostBatchRequest() {}
+
+    public PostBatchRequest(List<PostBatchOperation> operations) {
+        this.operations = operations;
+    }
+
+    // Getters
+    public List<PostBatchOperation> getOperations() { return operations; }
+
+    // Setters
+    public void setOperations(List<PostBatchOperation> operations) { this.operations = operations; }
+}
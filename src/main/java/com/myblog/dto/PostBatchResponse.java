@@ -0,0 +1,20 @@
+package com.myblog.dto;
+
+import java.util.List;
+
+public class PostBatchResponse {
+    // В порядке операций запроса
+    private List<PostBatchResult> results;
+
+    public PostBatchResponse() {}
+
+    public PostBatchResponse(List<PostBatchResult> results) {
+        this.results = results;
+    }
+
+    // Getters
+    public List<PostBatchResult> getResults() { return results; }
+
+    // Setters
+    public void setResults(List<PostBatchResult> results) { this.results = results; }
+}
@@ -0,0 +1,42 @@
+package com.myblog.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.myblog.model.Post;
+
+// Результат одной операции пакета; status — HTTP-код, который вернул бы одиночный запрос
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class PostBatchResult {
+    private int index;
+    private String op;
+    private int status;
+    private Long id;
+    private Post post;
+    private String error;
+
+    public PostBatchResult() {}
+
+    public PostBatchResult(int index, String op, int status, Long id, Post post, String error) {
+        this.index = index;
+        this.op = op;
+        this.status = status;
+        this.id = id;
+        this.post = post;
+        this.error = error;
+    }
+
+    // Getters
+    public int getIndex() { return index; }
+    public String getOp() { return op; }
+    public int getStatus() { return status; }
+    public Long getId() { return id; }
+    public Post getPost() { return post; }
+    public String getError() { return error; }
+
+    // Setters
+    public void setIndex(int index) { this.index = index; }
+    public void setOp(String op) { this.op = op; }
+    public void setStatus(int status) { this.status = status; }
+    public void setId(Long id) { this.id = id; }
+    public void setPost(Post post) { this.post = post; }
+    public void setError(String error) { this.error = error; }
+}
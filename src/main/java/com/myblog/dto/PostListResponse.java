@@ -1,14 +1,21 @@
 package com.myblog.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.myblog.model.Post;
 import java.util.List;
 
 public class PostListResponse {
+    // Номер последней страницы не вычислялся (курсор или запрос без подсчёта)
+    public static final int UNKNOWN_LAST_PAGE = -1;
+
     private List<Post> posts;
     private boolean hasPrev;
     private boolean hasNext;
     private int lastPage;
 
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String nextCursor;
+
     public PostListResponse() {}
 
     public PostListResponse(List<Post> posts, boolean hasPrev, boolean hasNext, int lastPage) {
@@ -18,15 +25,22 @@ public class PostListResponse {
         this.lastPage = lastPage;
     }
 
+    public PostListResponse(List<Post> posts, boolean hasPrev, boolean hasNext, int lastPage, String nextCursor) {
+        this(posts, hasPrev, hasNext, lastPage);
+        this.nextCursor = nextCursor;
+    }
+
     // Getters
     public List<Post> getPosts() { return posts; }
     public boolean isHasPrev() { return hasPrev; }
     public boolean isHasNext() { return hasNext; }
     public int getLastPage() { return lastPage; }
+    public String getNextCursor() { return nextCursor; }
 
     // Setters
     public void setPosts(List<Post> posts) { this.posts = posts; }
     public void setHasPrev(boolean hasPrev) { this.hasPrev = hasPrev; }
     public void setHasNext(boolean hasNext) { this.hasNext = hasNext; }
     public void setLastPage(int lastPage) { this.lastPage = lastPage; }
+    public void setNextCursor(String nextCursor) { this.nextCursor = nextCursor; }
 }
@@ -0,0 +1,25 @@
+package com.myblog.dto;
+
+import com.myblog.model.Post;
+import java.util.List;
+
+public class PostsByIdsResponse {
+    // Найденные посты в порядке запроса
+    private List<Post> posts;
+    private List<Long> missingIds;
+
+    public PostsByIdsResponse() {}
+
+    public PostsByIdsResponse(List<Post> posts, List<Long> missingIds) {
+        this.posts = posts;
+        this.missingIds = missingIds;
+    }
+
+    // Getters
+    public List<Post> getPosts() { return posts; }
+    public List<Long> getMissingIds() { return missingIds; }
+
+    // Setters
+    public void setPosts(List<Post> posts) { this.posts = posts; }
+    public void setMissingIds(List<Long> missingIds) { this.missingIds = missingIds; }
+}
@@ -0,0 +1,7 @@
+package com.myblog.exception;
+
+public class ImageTooLargeException extends RuntimeException {
+    public ImageTooLargeException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.myblog.exception;
+
+public class UnsupportedImageTypeException extends RuntimeException {
+    public UnsupportedImageTypeException(String message) {
+        super(message);
+    }
+}
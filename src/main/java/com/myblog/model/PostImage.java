@@ -0,0 +1,34 @@
+package com.myblog.model;
+
+import java.time.LocalDateTime;
+
+public class PostImage {
+    private Long postId;
+    private String contentHash;
+    private String contentType;
+    private long size;
+    private LocalDateTime uploadedAt;
+
+    public PostImage() {}
+
+    public PostImage(Long postId, String contentHash, String contentType, long size) {
+        this.postId = postId;
+        this.contentHash = contentHash;
+        this.contentType = contentType;
+        this.size = size;
+    }
+
+    // Getters
+    public Long getPostId() { return postId; }
+    public String getContentHash() { return contentHash; }
+    public String getContentType() { return contentType; }
+    public long getSize() { return size; }
+    public LocalDateTime getUploadedAt() { return uploadedAt; }
+
+    // Setters
+    public void setPostId(Long postId) { this.postId = postId; }
+    public void setContentHash(String contentHash) { this.contentHash = contentHash; }
+    public void setContentType(String contentType) { this.contentType = contentType; }
+    public void setSize(long size) { this.size = size; }
+    public void setUploadedAt(LocalDateTime uploadedAt) { this.uploadedAt = uploadedAt; }
+}
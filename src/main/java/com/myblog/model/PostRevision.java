@@ -0,0 +1,16 @@
+package com.myblog.model;
+
+// Ревизия поста для условных GET: тег меняется при любом изменении JSON поста,
+// lastModified — updated_at (меняется с текстом, заголовком и тегами, но не со счётчиками)
+public class PostRevision {
+    private final String tag;
+    private final long lastModified;
+
+    public PostRevision(String tag, long lastModified) {
+        this.tag = tag;
+        this.lastModified = lastModified;
+    }
+
+    public String getTag() { return tag; }
+    public long getLastModified() { return lastModified; }
+}
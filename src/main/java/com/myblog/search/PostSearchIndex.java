@@ -0,0 +1,207 @@
+package com.myblog.search;
+
+import com.myblog.dao.support.RollbackRefresh;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Полнотекстовый индекс по заголовкам и текстам постов, хранится в памяти.
+ * Каждое слово запроса ищется как префикс, посты должны содержать все слова,
+ * результат упорядочен по релевантности (BM25, слова заголовка весят больше).
+ */
+@Component
+public class PostSearchIndex implements InitializingBean {
+
+    private static final Logger log = LoggerFactory.getLogger(PostSearchIndex.class);
+
+    private static final int TITLE_WEIGHT = 3;
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+
+    // слово -> (id поста -> взвешенная частота)
+    private final ConcurrentSkipListMap<String, Map<Long, Integer>> postings = new ConcurrentSkipListMap<>();
+    // id поста -> слова и длина документа, нужны для удаления и нормировки
+    private final Map<Long, Document> documents = new ConcurrentHashMap<>();
+    private volatile long totalLength;
+
+    public PostSearchIndex(JdbcTemplate jdbcTemplate,
+                           @Value("${search.full-text.enabled:true}") boolean enabled) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        if (enabled) {
+            rebuild();
+        }
+    }
+
+    public synchronized void rebuild() {
+        postings.clear();
+        documents.clear();
+        totalLength = 0;
+
+        long started = System.currentTimeMillis();
+        jdbcTemplate.query("SELECT id, title, text FROM posts WHERE deleted_at IS NULL", rs -> {
+            add(rs.getLong("id"), rs.getString("title"), rs.getString("text"));
+        });
+        log.info("Full-text index rebuilt: {} posts, {} terms in {} ms",
+            documents.size(), postings.size(), System.currentTimeMillis() - started);
+    }
+
+    public void index(Long postId, String title, String text) {
+        if (!enabled) {
+            return;
+        }
+        synchronized (this) {
+            remove(postId);
+            add(postId, title, text);
+        }
+        // Индекс меняется сразу, чтобы транзакция видела свои изменения;
+        // при откате затронутые посты перечитываются из БД
+        RollbackRefresh.track(this, postId, this::refresh);
+    }
+
+    public void delete(Long postId) {
+        if (!enabled) {
+            return;
+        }
+        synchronized (this) {
+            remove(postId);
+        }
+        RollbackRefresh.track(this, postId, this::refresh);
+    }
+
+    public List<Long> search(String query) {
+        List<String> terms = new ArrayList<>(new LinkedHashSet<>(Tokenizer.tokenize(query)));
+        if (terms.isEmpty() || documents.isEmpty()) {
+            return List.of();
+        }
+
+        double averageLength = (double) totalLength / Math.max(documents.size(), 1);
+        Map<Long, Double> scores = null;
+
+        for (String term : terms) {
+            // Слово запроса совпадает со всеми словами индекса, которые с него начинаются
+            Map<Long, Double> termScores = new HashMap<>();
+            NavigableMap<String, Map<Long, Integer>> expansions = postings.subMap(term, true, term + Character.MAX_VALUE, true);
+            for (Map<Long, Integer> docs : expansions.values()) {
+                double idf = idf(docs.size());
+                for (Map.Entry<Long, Integer> entry : docs.entrySet()) {
+                    Document document = documents.get(entry.getKey());
+                    if (document == null) {
+                        continue;
+                    }
+                    double tf = entry.getValue();
+                    double norm = tf * (K1 + 1) / (tf + K1 * (1 - B + B * document.length / averageLength));
+                    termScores.merge(entry.getKey(), idf * norm, Double::sum);
+                }
+            }
+
+            if (scores == null) {
+                scores = termScores;
+            } else {
+                scores.keySet().retainAll(termScores.keySet());
+                for (Map.Entry<Long, Double> entry : scores.entrySet()) {
+                    entry.setValue(entry.getValue() + termScores.get(entry.getKey()));
+                }
+            }
+            if (scores.isEmpty()) {
+                return List.of();
+            }
+        }
+
+        List<Map.Entry<Long, Double>> ranked = new ArrayList<>(scores.entrySet());
+        ranked.sort(Map.Entry.<Long, Double>comparingByValue().reversed()
+            .thenComparing(Map.Entry.comparingByKey(Comparator.reverseOrder())));
+
+        List<Long> ids = new ArrayList<>(ranked.size());
+        for (Map.Entry<Long, Double> entry : ranked) {
+            ids.add(entry.getKey());
+        }
+        return ids;
+    }
+
+    private double idf(int documentFrequency) {
+        int n = documents.size();
+        return Math.log(1 + (n - documentFrequency + 0.5) / (documentFrequency + 0.5));
+    }
+
+    private void add(Long postId, String title, String text) {
+        Map<String, Integer> frequencies = new HashMap<>();
+        for (String term : Tokenizer.tokenize(title)) {
+            frequencies.merge(term, TITLE_WEIGHT, Integer::sum);
+        }
+        for (String term : Tokenizer.tokenize(text)) {
+            frequencies.merge(term, 1, Integer::sum);
+        }
+
+        int length = 0;
+        for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+            postings.computeIfAbsent(entry.getKey(), t -> new ConcurrentHashMap<>())
+                .put(postId, entry.getValue());
+            length += entry.getValue();
+        }
+        documents.put(postId, new Document(frequencies.keySet(), length));
+        totalLength += length;
+    }
+
+    private void remove(Long postId) {
+        Document document = documents.remove(postId);
+        if (document == null) {
+            return;
+        }
+        for (String term : document.terms) {
+            postings.computeIfPresent(term, (t, docs) -> {
+                docs.remove(postId);
+                return docs.isEmpty() ? null : docs;
+            });
+        }
+        totalLength -= document.length;
+    }
+
+    private void refresh(Collection<Long> postIds) {
+        synchronized (this) {
+            for (Long postId : postIds) {
+                remove(postId);
+            }
+            jdbcTemplate.query("SELECT id, title, text FROM posts WHERE id = ANY(?) AND deleted_at IS NULL", rs -> {
+                add(rs.getLong("id"), rs.getString("title"), rs.getString("text"));
+            }, (Object) postIds.toArray(new Long[0]));
+        }
+    }
+
+    private static final class Document {
+        private final Set<String> terms;
+        private final int length;
+
+        private Document(Set<String> terms, int length) {
+            this.terms = terms;
+            this.length = length;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.myblog.service;
 
+import com.myblog.dto.CommentPageResponse;
 import com.myblog.dto.CreateCommentRequest;
 import com.myblog.dto.UpdateCommentRequest;
 import com.myblog.model.Comment;
@@ -9,6 +10,7 @@ import java.util.Optional;
 
 public interface CommentService {
     List<Comment> getCommentsByPostId(Long postId);
+    CommentPageResponse getCommentsPage(Long postId, String cursor, int limit);
     Optional<Comment> getCommentById(Long commentId);
     Comment createComment(CreateCommentRequest request);
     Comment updateComment(Long commentId, UpdateCommentRequest request);
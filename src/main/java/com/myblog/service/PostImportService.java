@@ -0,0 +1,10 @@
+package com.myblog.service;
+
+import com.myblog.dto.ImportReport;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+public interface PostImportService {
+    ImportReport importPosts(InputStream ndjson) throws IOException;
+}
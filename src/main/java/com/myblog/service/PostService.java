@@ -1,22 +1,43 @@
 package com.myblog.service;
 
 import com.myblog.dto.CreatePostRequest;
+import com.myblog.dto.PostBatchOperation;
+import com.myblog.dto.PostBatchResponse;
 import com.myblog.dto.PostListResponse;
+import com.myblog.dto.PostsByIdsResponse;
 import com.myblog.dto.UpdatePostRequest;
 import com.myblog.model.Post;
+import com.myblog.model.PostImage;
+import com.myblog.model.PostRevision;
+import com.myblog.storage.ImageContent;
+import com.myblog.storage.ImageVariant;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
 import java.util.Optional;
 
 public interface PostService {
     PostListResponse getPosts(String search, int pageNumber, int pageSize);
+    PostListResponse getPostsWithoutCount(String search, int pageNumber, int pageSize);
+    PostListResponse getPostsAfter(String search, String cursor, int pageSize);
+    void writePosts(String search, int pageNumber, int pageSize, boolean withLastPage, OutputStream out)
+        throws IOException;
+    void exportPosts(Long afterId, OutputStream out) throws IOException;
     Optional<Post> getPostById(Long id);
+    PostsByIdsResponse getPostsByIds(List<Long> ids);
+    Optional<PostRevision> getPostRevision(Long id);
+    long getFeedVersion();
     Post createPost(CreatePostRequest request);
     Post updatePost(Long id, UpdatePostRequest request);
     void deletePost(Long id);
+    PostBatchResponse applyBatch(List<PostBatchOperation> operations);
     int incrementLikes(Long id);
     int decrementLikes(Long id);
-    void saveImage(Long postId, byte[] imageData, String contentType);
-    Optional<byte[]> getImage(Long postId);
-    Optional<String> getImageContentType(Long postId);
+    void saveImage(Long postId, InputStream imageData) throws IOException;
+    Optional<PostImage> getImage(Long postId);
+    Optional<ImageContent> openImage(PostImage image) throws IOException;
+    Optional<ImageVariant> openImageVariant(PostImage image, Integer width, Integer height) throws IOException;
 }
 
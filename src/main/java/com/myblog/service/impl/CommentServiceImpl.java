@@ -1,6 +1,8 @@
 package com.myblog.service.impl;
 
 import com.myblog.dao.CommentDao;
+import com.myblog.dao.support.KeysetCursor;
+import com.myblog.dto.CommentPageResponse;
 import com.myblog.dto.CreateCommentRequest;
 import com.myblog.dto.UpdateCommentRequest;
 import com.myblog.model.Comment;
@@ -17,6 +19,7 @@ import java.util.Optional;
 public class CommentServiceImpl implements CommentService {
 
     private static final Logger log = LoggerFactory.getLogger(CommentServiceImpl.class);
+    private static final int MAX_PAGE_SIZE = 100;
     private final CommentDao commentDao;
 
     public CommentServiceImpl(CommentDao commentDao) {
@@ -30,6 +33,32 @@ public class CommentServiceImpl implements CommentService {
         return commentDao.findByPostId(postId);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public CommentPageResponse getCommentsPage(Long postId, String cursor, int limit) {
+        log.debug("Getting comments for post with id: {}, cursor: {}, limit: {}", postId, cursor, limit);
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+
+        KeysetCursor after = cursor == null || cursor.isEmpty() ? null : KeysetCursor.decode(cursor);
+
+        // Лишняя строка нужна только для определения hasNext
+        List<Comment> comments = commentDao.findPage(postId, after, limit + 1);
+        boolean hasNext = comments.size() > limit;
+        if (hasNext) {
+            comments = comments.subList(0, limit);
+        }
+
+        String nextCursor = null;
+        if (hasNext) {
+            Comment last = comments.get(comments.size() - 1);
+            nextCursor = new KeysetCursor(last.getCreatedAt(), last.getId()).encode();
+        }
+
+        return new CommentPageResponse(comments, hasNext, commentDao.getCommentsCount(postId), nextCursor);
+    }
+
     @Override
     @Transactional(readOnly = true)
     public Optional<Comment> getCommentById(Long commentId) {
@@ -0,0 +1,265 @@
+package com.myblog.service.impl;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.myblog.dao.PostDao;
+import com.myblog.dto.ImportPostRecord;
+import com.myblog.dto.ImportReport;
+import com.myblog.model.Post;
+import com.myblog.service.PostImportService;
+import com.myblog.storage.ImageUploader;
+import com.myblog.storage.StoredImage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Массовый импорт постов из NDJSON. Строки читаются пачками; пачки разбираются
+ * параллельно, а записываются по порядку, каждая пакетными INSERT в своей
+ * транзакции. Изображения сохраняются перед записью пачки, и если её транзакция
+ * откатилась, новые файлы, на которые никто не сослался, удаляются.
+ * Ошибка в строке или пачке не прерывает импорт.
+ */
+@Service
+public class PostImportServiceImpl implements PostImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(PostImportServiceImpl.class);
+    private static final int MAX_REPORTED_ERRORS = 20;
+
+    private final PostDao postDao;
+    private final ImageUploader imageUploader;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectReader recordReader = new ObjectMapper()
+        .readerFor(ImportPostRecord.class)
+        .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+    private final int batchSize;
+    private final int threads;
+    private final Path imageDirectory;
+
+    public PostImportServiceImpl(PostDao postDao, ImageUploader imageUploader,
+                                 PlatformTransactionManager transactionManager,
+                                 @Value("${import.batch-size:500}") int batchSize,
+                                 @Value("${import.threads:0}") int threads,
+                                 @Value("${import.image-dir:}") String imageDirectory) {
+        this.postDao = postDao;
+        this.imageUploader = imageUploader;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        // Запись идёт в потоке запроса, разбор — в остальных ядрах
+        this.threads = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+        this.imageDirectory = imageDirectory.isEmpty() ? null : Path.of(imageDirectory).toAbsolutePath().normalize();
+    }
+
+    @Override
+    public ImportReport importPosts(InputStream ndjson) throws IOException {
+        long started = System.nanoTime();
+        ImportReport report = new ImportReport();
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        ExecutorService parsers = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "post-import-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Разобранные пачки ждут записи в порядке чтения; очередь ограничена,
+        // чтобы чтение не уходило далеко вперёд записи
+        Deque<Future<Chunk>> parsed = new ArrayDeque<>();
+        try {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(ndjson, StandardCharsets.UTF_8));
+            List<String> lines = new ArrayList<>(batchSize);
+            int lineNumber = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                lines.add(line);
+                if (lines.size() == batchSize) {
+                    Chunk chunk = new Chunk(lineNumber - lines.size() + 1, lines);
+                    parsed.add(parsers.submit(() -> parse(chunk)));
+                    lines = new ArrayList<>(batchSize);
+                    if (parsed.size() > threads * 2) {
+                        write(parsed.poll(), report);
+                    }
+                }
+            }
+            if (!lines.isEmpty()) {
+                Chunk chunk = new Chunk(lineNumber - lines.size() + 1, lines);
+                parsed.add(parsers.submit(() -> parse(chunk)));
+            }
+            while (!parsed.isEmpty()) {
+                write(parsed.poll(), report);
+            }
+        } finally {
+            parsers.shutdownNow();
+        }
+
+        long elapsedMillis = Math.max(1, (System.nanoTime() - started) / 1_000_000);
+        report.setElapsedMillis(elapsedMillis);
+        report.setRowsPerSecond(report.getImported() * 1000 / elapsedMillis);
+        log.info("Imported {} posts ({} failed) in {} ms, {} rows/s",
+            report.getImported(), report.getFailed(), elapsedMillis, report.getRowsPerSecond());
+        return report;
+    }
+
+    private Chunk parse(Chunk chunk) {
+        for (int i = 0; i < chunk.lines.size(); i++) {
+            String line = chunk.lines.get(i);
+            if (line.isBlank()) {
+                continue;
+            }
+            int lineNumber = chunk.firstLine + i;
+            try {
+                ImportPostRecord record = recordReader.readValue(line);
+                if (record.getTitle() == null || record.getTitle().isBlank()) {
+                    throw new IllegalArgumentException("title is required");
+                }
+                if (record.getLikes() != null && record.getLikes() < 0) {
+                    throw new IllegalArgumentException("likes must not be negative");
+                }
+
+                Post post = new Post(null, record.getTitle(), record.getText() != null ? record.getText() : "",
+                    record.getTags(), record.getLikes() != null ? record.getLikes() : 0, 0);
+                Path image = record.getImage() != null ? resolveImage(record.getImage()) : null;
+                chunk.posts.add(post);
+                chunk.images.add(image);
+                chunk.postLines.add(lineNumber);
+            } catch (IOException | RuntimeException e) {
+                chunk.errors.add("line " + lineNumber + ": " + e.getMessage());
+            }
+        }
+        // Строки больше не нужны, пока пачка ждёт записи
+        chunk.lines = List.of();
+        return chunk;
+    }
+
+    // Путь изображения берётся только внутри import.image-dir
+    private Path resolveImage(String image) {
+        if (imageDirectory == null) {
+            throw new IllegalArgumentException("image import is disabled (import.image-dir is not set)");
+        }
+        Path path = imageDirectory.resolve(image).normalize();
+        if (!path.startsWith(imageDirectory)) {
+            throw new IllegalArgumentException("image path is outside import.image-dir: " + image);
+        }
+        if (!Files.isRegularFile(path)) {
+            throw new IllegalArgumentException("image file not found: " + image);
+        }
+        return path;
+    }
+
+    private void write(Future<Chunk> future, ImportReport report) throws IOException {
+        Chunk chunk;
+        try {
+            chunk = future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while importing posts", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Failed to parse posts", e.getCause());
+        }
+
+        report.setFailed(report.getFailed() + chunk.errors.size());
+        for (String error : chunk.errors) {
+            addError(report, error);
+        }
+
+        // Изображения сохраняются в потоке записи непосредственно перед транзакцией пачки;
+        // пост, изображение которого сохранить не удалось, считается ошибочной строкой
+        List<Post> posts = new ArrayList<>(chunk.posts.size());
+        List<StoredImage> images = new ArrayList<>(chunk.posts.size());
+        for (int i = 0; i < chunk.posts.size(); i++) {
+            Path path = chunk.images.get(i);
+            StoredImage image = null;
+            if (path != null) {
+                try (InputStream data = Files.newInputStream(path)) {
+                    image = imageUploader.upload(data);
+                } catch (IOException | RuntimeException e) {
+                    report.setFailed(report.getFailed() + 1);
+                    addError(report, "line " + chunk.postLines.get(i) + ": " + e.getMessage());
+                    continue;
+                }
+            }
+            posts.add(chunk.posts.get(i));
+            images.add(image);
+        }
+        if (posts.isEmpty()) {
+            return;
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                postDao.createAll(posts);
+                for (int i = 0; i < posts.size(); i++) {
+                    StoredImage image = images.get(i);
+                    if (image != null) {
+                        postDao.saveImage(posts.get(i).getId(), image, image.getContentType());
+                    }
+                }
+            });
+            report.setImported(report.getImported() + posts.size());
+            log.debug("Imported {} posts starting at line {}", posts.size(), chunk.firstLine);
+        } catch (RuntimeException e) {
+            log.error("Failed to import posts starting at line {}", chunk.firstLine, e);
+            discardImages(images);
+            report.setFailed(report.getFailed() + posts.size());
+            addError(report, "lines from " + chunk.firstLine + ": " + e.getMessage());
+        }
+    }
+
+    // Файлы, которые появились в хранилище ради откатившейся пачки. Хранилище общее:
+    // пока пачка откатывалась, те же байты могла загрузить и закоммитить другая запись,
+    // поэтому файл удаляется, только если на него нет ссылок в post_images
+    private void discardImages(List<StoredImage> images) {
+        for (StoredImage image : images) {
+            if (image == null || !image.isCreated() || postDao.isImageReferenced(image.getHash())) {
+                continue;
+            }
+            try {
+                imageUploader.discard(image);
+            } catch (IOException e) {
+                log.warn("Failed to delete orphaned image {}", image.getHash(), e);
+            }
+        }
+    }
+
+    private static void addError(ImportReport report, String error) {
+        if (report.getErrors().size() < MAX_REPORTED_ERRORS) {
+            report.getErrors().add(error);
+        }
+    }
+
+    private static final class Chunk {
+        private final int firstLine;
+        private List<String> lines;
+        private final List<Post> posts = new ArrayList<>();
+        // Проверенные пути изображений и номера строк постов, по одному на пост
+        private final List<Path> images = new ArrayList<>();
+        private final List<Integer> postLines = new ArrayList<>();
+        private final List<String> errors = new ArrayList<>();
+
+        private Chunk(int firstLine, List<String> lines) {
+            this.firstLine = firstLine;
+            this.lines = lines;
+        }
+    }
+}
@@ -1,27 +1,63 @@
 package com.myblog.service.impl;
 
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.myblog.dao.PostDao;
+import com.myblog.dao.support.KeysetCursor;
 import com.myblog.dto.CreatePostRequest;
+import com.myblog.dto.PostBatchOperation;
+import com.myblog.dto.PostBatchResponse;
+import com.myblog.dto.PostBatchResult;
 import com.myblog.dto.PostListResponse;
+import com.myblog.dto.PostsByIdsResponse;
 import com.myblog.dto.UpdatePostRequest;
+import com.myblog.model.Comment;
 import com.myblog.model.Post;
+import com.myblog.model.PostImage;
+import com.myblog.model.PostRevision;
 import com.myblog.service.PostService;
+import com.myblog.storage.ImageContent;
+import com.myblog.storage.ImageStorage;
+import com.myblog.storage.ImageUploader;
+import com.myblog.storage.ImageVariant;
+import com.myblog.storage.ImageVariants;
+import com.myblog.storage.StoredImage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
 public class PostServiceImpl implements PostService {
 
     private static final Logger log = LoggerFactory.getLogger(PostServiceImpl.class);
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    private static final int MAX_IDS_PER_REQUEST = 100;
+    private static final int MAX_BATCH_OPERATIONS = 1000;
     private final PostDao postDao;
+    private final ImageStorage imageStorage;
+    private final ImageUploader imageUploader;
+    private final ImageVariants imageVariants;
 
-    public PostServiceImpl(PostDao postDao) {
+    public PostServiceImpl(PostDao postDao, ImageStorage imageStorage, ImageUploader imageUploader,
+                           ImageVariants imageVariants) {
         this.postDao = postDao;
+        this.imageStorage = imageStorage;
+        this.imageUploader = imageUploader;
+        this.imageVariants = imageVariants;
     }
 
     @Override
@@ -36,6 +72,134 @@ public class PostServiceImpl implements PostService {
         return new PostListResponse(posts, pageNumber > 1, pageNumber < lastPage, lastPage);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public PostListResponse getPostsWithoutCount(String search, int pageNumber, int pageSize) {
+        log.debug("Getting posts without count, search: {}, page: {}, size: {}", search, pageNumber, pageSize);
+
+        // hasNext определяется по лишней строке вместо COUNT(*) по всему фильтру
+        List<Post> posts = postDao.findSlice(search, (pageNumber - 1) * pageSize, pageSize + 1);
+        boolean hasNext = posts.size() > pageSize;
+        if (hasNext) {
+            posts = posts.subList(0, pageSize);
+        }
+
+        return new PostListResponse(posts, pageNumber > 1, hasNext, PostListResponse.UNKNOWN_LAST_PAGE);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public PostListResponse getPostsAfter(String search, String cursor, int pageSize) {
+        log.debug("Getting posts with search: {}, cursor: {}, size: {}", search, cursor, pageSize);
+
+        KeysetCursor after = cursor == null || cursor.isEmpty() ? null : KeysetCursor.decode(cursor);
+
+        // Лишняя строка нужна только для определения hasNext
+        List<Post> posts = postDao.findAfter(search, after, pageSize + 1);
+        boolean hasNext = posts.size() > pageSize;
+        if (hasNext) {
+            posts = posts.subList(0, pageSize);
+        }
+
+        String nextCursor = null;
+        if (hasNext) {
+            Post last = posts.get(posts.size() - 1);
+            nextCursor = new KeysetCursor(last.getCreatedAt(), last.getId()).encode();
+        }
+
+        return new PostListResponse(posts, after != null, hasNext, PostListResponse.UNKNOWN_LAST_PAGE, nextCursor);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void writePosts(String search, int pageNumber, int pageSize, boolean withLastPage, OutputStream out)
+            throws IOException {
+        log.debug("Streaming posts with search: {}, page: {}, size: {}", search, pageNumber, pageSize);
+
+        int lastPage = PostListResponse.UNKNOWN_LAST_PAGE;
+        if (withLastPage) {
+            lastPage = (int) Math.ceil((double) postDao.getTotalCount(search) / pageSize);
+        }
+        // Без подсчёта hasNext определяется по лишней строке, которая в ответ не пишется
+        int limit = withLastPage ? pageSize : pageSize + 1;
+
+        // Та же структура, что у PostListResponse, но строки пишутся в ответ сразу по мере чтения
+        try (JsonGenerator json = JSON_FACTORY.createGenerator(out, JsonEncoding.UTF8)) {
+            json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            json.writeStartObject();
+            json.writeArrayFieldStart("posts");
+            int[] rows = new int[1];
+            postDao.streamSlice(search, (pageNumber - 1) * pageSize, limit,
+                (id, title, preview, tags, likesCount, commentsCount) -> {
+                    if (++rows[0] > pageSize) {
+                        return;
+                    }
+                    json.writeStartObject();
+                    json.writeNumberField("id", id);
+                    json.writeStringField("title", title);
+                    json.writeStringField("text", preview);
+                    json.writeArrayFieldStart("tags");
+                    for (Object tag : tags) {
+                        json.writeString((String) tag);
+                    }
+                    json.writeEndArray();
+                    json.writeNumberField("likesCount", likesCount);
+                    json.writeNumberField("commentsCount", commentsCount);
+                    json.writeEndObject();
+                });
+            json.writeEndArray();
+
+            boolean hasNext = withLastPage ? pageNumber < lastPage : rows[0] > pageSize;
+            json.writeBooleanField("hasPrev", pageNumber > 1);
+            json.writeBooleanField("hasNext", hasNext);
+            json.writeNumberField("lastPage", lastPage);
+            json.writeEndObject();
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void exportPosts(Long afterId, OutputStream out) throws IOException {
+        log.info("Exporting posts after id: {}", afterId);
+
+        // Одна строка JSON на пост; строка пишется только целиком, поэтому после обрыва
+        // выгрузку можно продолжить с afterId = id последней полной строки
+        long[] exported = new long[1];
+        try (JsonGenerator json = JSON_FACTORY.createGenerator(out, JsonEncoding.UTF8)) {
+            json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            json.setRootValueSeparator(null);
+            postDao.exportAfter(afterId, (post, comments) -> {
+                json.writeStartObject();
+                json.writeNumberField("id", post.getId());
+                json.writeStringField("title", post.getTitle());
+                json.writeStringField("text", post.getText());
+                json.writeArrayFieldStart("tags");
+                for (String tag : post.getTags()) {
+                    json.writeString(tag);
+                }
+                json.writeEndArray();
+                json.writeNumberField("likesCount", post.getLikesCount());
+                json.writeNumberField("commentsCount", post.getCommentsCount());
+                json.writeStringField("createdAt", DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(post.getCreatedAt()));
+                json.writeStringField("updatedAt", DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(post.getUpdatedAt()));
+                json.writeArrayFieldStart("comments");
+                for (Comment comment : comments) {
+                    json.writeStartObject();
+                    json.writeNumberField("id", comment.getId());
+                    json.writeStringField("text", comment.getText());
+                    json.writeStringField("createdAt", DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(comment.getCreatedAt()));
+                    json.writeStringField("updatedAt", DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(comment.getUpdatedAt()));
+                    json.writeEndObject();
+                }
+                json.writeEndArray();
+                json.writeEndObject();
+                json.writeRaw('\n');
+                exported[0]++;
+            });
+        }
+        log.info("Exported {} posts", exported[0]);
+    }
+
     @Override
     @Transactional(readOnly = true)
     public Optional<Post> getPostById(Long id) {
@@ -43,6 +207,40 @@ public class PostServiceImpl implements PostService {
         return postDao.findById(id);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public PostsByIdsResponse getPostsByIds(List<Long> ids) {
+        log.debug("Getting posts by ids: {}", ids);
+        Set<Long> unique = new LinkedHashSet<>(ids);
+        if (unique.isEmpty() || unique.size() > MAX_IDS_PER_REQUEST) {
+            throw new IllegalArgumentException("Number of ids must be between 1 and " + MAX_IDS_PER_REQUEST);
+        }
+
+        List<Post> posts = postDao.findByIds(unique);
+        Set<Long> foundIds = new HashSet<>();
+        for (Post post : posts) {
+            foundIds.add(post.getId());
+        }
+        List<Long> missingIds = new ArrayList<>();
+        for (Long id : unique) {
+            if (!foundIds.contains(id)) {
+                missingIds.add(id);
+            }
+        }
+        return new PostsByIdsResponse(posts, missingIds);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<PostRevision> getPostRevision(Long id) {
+        return postDao.findRevision(id);
+    }
+
+    @Override
+    public long getFeedVersion() {
+        return postDao.getContentVersion();
+    }
+
     @Override
     @Transactional
     public Post createPost(CreatePostRequest request) {
@@ -71,57 +269,183 @@ public class PostServiceImpl implements PostService {
         post.setText(request.getText());
         post.setTags(request.getTags());
         
-        return postDao.update(post);
+        return postDao.update(post)
+            .orElseThrow(() -> new IllegalArgumentException("Post not found with id: " + id));
     }
 
     @Override
     @Transactional
     public void deletePost(Long id) {
-        // TODO: Реализовать удаление поста
-        // 1. Вызвать postDao.delete(id)
-        // ВАЖНО: Метод уже помечен @Transactional - это обеспечит атомарность каскадного удаления
-        // Подсказка: посмотрите на метод createPost как пример
-        throw new UnsupportedOperationException("TODO: Implement deletePost");
+        log.debug("Deleting post with id: {}", id);
+        postDao.delete(id);
+    }
+
+    @Override
+    @Transactional
+    public PostBatchResponse applyBatch(List<PostBatchOperation> operations) {
+        if (operations == null || operations.isEmpty() || operations.size() > MAX_BATCH_OPERATIONS) {
+            throw new IllegalArgumentException("Number of operations must be between 1 and " + MAX_BATCH_OPERATIONS);
+        }
+        log.debug("Applying batch of {} post operations", operations.size());
+
+        // Подряд идущие операции одного типа выполняются одним пакетом, пакеты — в порядке
+        // запроса, поэтому [delete 5, update 5] даёт 404 для изменения.
+        // Ошибка отдельной операции попадает в её результат, остальные выполняются
+        PostBatchResult[] results = new PostBatchResult[operations.size()];
+        List<Integer> run = new ArrayList<>();
+        String runOp = null;
+        for (int i = 0; i < operations.size(); i++) {
+            PostBatchOperation operation = operations.get(i);
+            String error = validate(operation);
+            if (error != null) {
+                results[i] = new PostBatchResult(i, operation.getOp(), 400, operation.getId(), null, error);
+                continue;
+            }
+            if (!operation.getOp().equals(runOp)) {
+                applyRun(runOp, run, operations, results);
+                run.clear();
+                runOp = operation.getOp();
+            }
+            run.add(i);
+        }
+        applyRun(runOp, run, operations, results);
+
+        return new PostBatchResponse(Arrays.asList(results));
+    }
+
+    private void applyRun(String op, List<Integer> indexes, List<PostBatchOperation> operations,
+                          PostBatchResult[] results) {
+        if (indexes.isEmpty()) {
+            return;
+        }
+        if (PostBatchOperation.CREATE.equals(op)) {
+            applyCreates(indexes, operations, results);
+        } else if (PostBatchOperation.UPDATE.equals(op)) {
+            applyUpdates(indexes, operations, results);
+        } else {
+            applyDeletes(indexes, operations, results);
+        }
+    }
+
+    private void applyCreates(List<Integer> indexes, List<PostBatchOperation> operations,
+                              PostBatchResult[] results) {
+        List<Post> creates = new ArrayList<>(indexes.size());
+        for (Integer index : indexes) {
+            PostBatchOperation operation = operations.get(index);
+            creates.add(new Post(null, operation.getTitle(), operation.getText(), operation.getTags(), 0, 0));
+        }
+        postDao.createAll(creates);
+        for (int i = 0; i < creates.size(); i++) {
+            Post post = creates.get(i);
+            results[indexes.get(i)] = new PostBatchResult(indexes.get(i),
+                PostBatchOperation.CREATE, 201, post.getId(), post, null);
+        }
+    }
+
+    private void applyUpdates(List<Integer> indexes, List<PostBatchOperation> operations,
+                              PostBatchResult[] results) {
+        List<Post> updates = new ArrayList<>(indexes.size());
+        for (Integer index : indexes) {
+            PostBatchOperation operation = operations.get(index);
+            updates.add(new Post(operation.getId(), operation.getTitle(), operation.getText(),
+                operation.getTags(), null, null));
+        }
+        Set<Long> updatedIds = new HashSet<>();
+        for (Post post : postDao.updateAll(updates)) {
+            updatedIds.add(post.getId());
+        }
+        for (int i = 0; i < updates.size(); i++) {
+            Post post = updates.get(i);
+            results[indexes.get(i)] = updatedIds.contains(post.getId())
+                ? new PostBatchResult(indexes.get(i), PostBatchOperation.UPDATE, 200, post.getId(), post, null)
+                : new PostBatchResult(indexes.get(i), PostBatchOperation.UPDATE, 404, post.getId(), null,
+                    "Post not found");
+        }
+    }
+
+    private void applyDeletes(List<Integer> indexes, List<PostBatchOperation> operations,
+                              PostBatchResult[] results) {
+        List<Long> deleteIds = new ArrayList<>(indexes.size());
+        for (Integer index : indexes) {
+            deleteIds.add(operations.get(index).getId());
+        }
+        Set<Long> deleted = new HashSet<>(postDao.deleteAll(deleteIds));
+        for (Integer index : indexes) {
+            Long id = operations.get(index).getId();
+            // Повторное удаление того же id в пакете уже не находит пост
+            results[index] = deleted.remove(id)
+                ? new PostBatchResult(index, PostBatchOperation.DELETE, 204, id, null, null)
+                : new PostBatchResult(index, PostBatchOperation.DELETE, 404, id, null, "Post not found");
+        }
+    }
+
+    private static String validate(PostBatchOperation operation) {
+        String op = operation.getOp();
+        if (!PostBatchOperation.CREATE.equals(op) && !PostBatchOperation.UPDATE.equals(op)
+                && !PostBatchOperation.DELETE.equals(op)) {
+            return "Unknown operation: " + op;
+        }
+        if (!PostBatchOperation.CREATE.equals(op) && operation.getId() == null) {
+            return "id is required";
+        }
+        if (!PostBatchOperation.DELETE.equals(op)
+                && (operation.getTitle() == null || operation.getTitle().isBlank())) {
+            return "title is required";
+        }
+        return null;
     }
 
     @Override
     @Transactional
     public int incrementLikes(Long id) {
         log.debug("Incrementing likes for post with id: {}", id);
-        postDao.incrementLikes(id);
-        
-        Optional<Post> post = postDao.findById(id);
-        return post.map(Post::getLikesCount).orElse(0);
+        return postDao.incrementLikes(id);
     }
 
     @Override
     @Transactional
     public int decrementLikes(Long id) {
-        // TODO: Реализовать уменьшение лайков
-        // 1. Вызвать postDao.decrementLikes(id)
-        // 2. Получить обновлённый пост через postDao.findById(id)
-        // 3. Вернуть новое значение likesCount
-        throw new UnsupportedOperationException("TODO: Implement decrementLikes");
+        log.debug("Decrementing likes for post with id: {}", id);
+        return postDao.decrementLikes(id);
     }
 
     @Override
-    @Transactional
-    public void saveImage(Long postId, byte[] imageData, String contentType) {
+    public void saveImage(Long postId, InputStream imageData) throws IOException {
         log.debug("Saving image for post with id: {}", postId);
-        postDao.saveImage(postId, imageData, contentType);
+        // Без транзакции: пока файл принимается, соединение из пула не занято
+        StoredImage stored = imageUploader.upload(imageData);
+        postDao.saveImage(postId, stored, stored.getContentType());
     }
 
     @Override
     @Transactional(readOnly = true)
-    public Optional<byte[]> getImage(Long postId) {
+    public Optional<PostImage> getImage(Long postId) {
         log.debug("Getting image for post with id: {}", postId);
-        return postDao.getImage(postId);
+        return postDao.findImage(postId);
     }
 
     @Override
     @Transactional(readOnly = true)
-    public Optional<String> getImageContentType(Long postId) {
-        return postDao.getImageContentType(postId);
+    public Optional<ImageContent> openImage(PostImage image) throws IOException {
+        if (image.getContentHash() == null) {
+            // Старая запись, ещё не перенесённая из BLOB
+            return postDao.getImage(image.getPostId()).map(ImageContent::ofBytes);
+        }
+        return imageStorage.open(image.getContentHash());
+    }
+
+    @Override
+    public Optional<ImageVariant> openImageVariant(PostImage image, Integer width, Integer height) throws IOException {
+        if ((width != null && (width <= 0 || width > imageVariants.getMaxDimension()))
+                || (height != null && (height <= 0 || height > imageVariants.getMaxDimension()))) {
+            throw new IllegalArgumentException("Image size must be between 1 and " + imageVariants.getMaxDimension());
+        }
+        if (image.getContentHash() == null || (width == null && height == null)) {
+            return openImage(image).map(content -> new ImageVariant(content, image.getContentType()));
+        }
+        // Для готовой копии исходник не открывается
+        return imageVariants.variant(
+            image.getContentHash(), () -> openImage(image), image.getContentType(), width, height);
     }
 }
 
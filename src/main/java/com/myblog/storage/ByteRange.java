@@ -0,0 +1,62 @@
+package com.myblog.storage;
+
+/**
+ * Диапазон из заголовка Range (RFC 9110). Поддерживается один диапазон:
+ * "bytes=0-99", "bytes=100-" и "bytes=-100".
+ */
+public class ByteRange {
+    private final long start;
+    private final long end;
+
+    public ByteRange(long start, long end) {
+        this.start = start;
+        this.end = end;
+    }
+
+    public long getStart() { return start; }
+    public long getEnd() { return end; }
+
+    public long length() {
+        return end - start + 1;
+    }
+
+    // null — отдать файл целиком; IllegalArgumentException — диапазон вне файла (416)
+    public static ByteRange parse(String header, long size) {
+        if (header == null || !header.startsWith("bytes=")) {
+            return null;
+        }
+        String spec = header.substring("bytes=".length()).trim();
+        if (spec.contains(",")) {
+            // Несколько диапазонов: сервер вправе отдать весь файл
+            return null;
+        }
+
+        int dash = spec.indexOf('-');
+        if (dash < 0) {
+            return null;
+        }
+        try {
+            String from = spec.substring(0, dash).trim();
+            String to = spec.substring(dash + 1).trim();
+            if (from.isEmpty()) {
+                long suffix = Long.parseLong(to);
+                if (suffix <= 0 || size == 0) {
+                    throw new IllegalArgumentException("Unsatisfiable range: " + header);
+                }
+                return new ByteRange(Math.max(0, size - suffix), size - 1);
+            }
+
+            long start = Long.parseLong(from);
+            long end = to.isEmpty() ? Long.MAX_VALUE : Long.parseLong(to);
+            if (end < start) {
+                return null;
+            }
+            if (start >= size) {
+                throw new IllegalArgumentException("Unsatisfiable range: " + header);
+            }
+            return new ByteRange(start, Math.min(end, size - 1));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.myblog.storage;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * Изображения в каталоге на диске: имя файла — SHA-256 содержимого,
+ * файлы разложены по подкаталогам по первым символам хэша (ab/cd/abcd...).
+ */
+@Component
+public class FileSystemImageStorage implements ImageStorage {
+
+    private static final Logger log = LoggerFactory.getLogger(FileSystemImageStorage.class);
+    private static final Pattern HASH = Pattern.compile("[0-9a-f]{64}");
+
+    private final Path root;
+    private final Path incoming;
+
+    public FileSystemImageStorage(@Value("${images.storage.dir}") String directory) throws IOException {
+        this.root = Path.of(directory).toAbsolutePath().normalize();
+        this.incoming = root.resolve("incoming");
+        Files.createDirectories(incoming);
+        log.info("Image storage directory: {}", root);
+    }
+
+    @Override
+    public StoredImage store(InputStream data) throws IOException {
+        MessageDigest digest = sha256();
+        // Сначала во временный файл рядом с хранилищем, чтобы перенос был атомарным
+        Path temp = Files.createTempFile(incoming, "upload-", ".tmp");
+        try {
+            long size;
+            try (OutputStream out = new DigestOutputStream(Files.newOutputStream(temp), digest)) {
+                size = data.transferTo(out);
+            }
+
+            String hash = HexFormat.of().formatHex(digest.digest());
+            Path target = pathOf(hash);
+            boolean created = false;
+            if (!Files.exists(target)) {
+                Files.createDirectories(target.getParent());
+                try {
+                    Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+                    created = true;
+                } catch (FileAlreadyExistsException e) {
+                    // Тот же файл параллельно сохранил другой запрос
+                }
+            }
+            return new StoredImage(hash, size, null, created);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    @Override
+    public Optional<ImageContent> open(String hash) {
+        if (hash == null || !HASH.matcher(hash).matches()) {
+            return Optional.empty();
+        }
+        Path path = pathOf(hash);
+        if (!Files.isRegularFile(path)) {
+            return Optional.empty();
+        }
+        return Optional.of(new FileContent(path));
+    }
+
+    @Override
+    public void delete(String hash) throws IOException {
+        if (hash == null || !HASH.matcher(hash).matches()) {
+            return;
+        }
+        Files.deleteIfExists(pathOf(hash));
+    }
+
+    private Path pathOf(String hash) {
+        return root.resolve(hash.substring(0, 2)).resolve(hash.substring(2, 4)).resolve(hash);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static final class FileContent implements ImageContent {
+        private final Path path;
+
+        FileContent(Path path) {
+            this.path = path;
+        }
+
+        @Override
+        public InputStream openStream() throws IOException {
+            return Files.newInputStream(path);
+        }
+
+        @Override
+        public long size() {
+            try {
+                return Files.size(path);
+            } catch (IOException e) {
+                return 0;
+            }
+        }
+
+        @Override
+        public void transferTo(long position, long count, WritableByteChannel target) throws IOException {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                long end = position + count;
+                while (position < end) {
+                    long transferred = channel.transferTo(position, end - position, target);
+                    if (transferred <= 0) {
+                        break;
+                    }
+                    position += transferred;
+                }
+            }
+        }
+    }
+}
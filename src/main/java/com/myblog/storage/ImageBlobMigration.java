@@ -0,0 +1,80 @@
+package com.myblog.storage;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+/**
+ * Переносит изображения, сохранённые раньше в BLOB post_images.image_data,
+ * в хранилище изображений и очищает BLOB. Запускается при старте; каждое
+ * изображение переносится отдельно, поэтому прерванный перенос можно продолжить.
+ */
+@Component
+public class ImageBlobMigration implements InitializingBean {
+
+    private static final Logger log = LoggerFactory.getLogger(ImageBlobMigration.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ImageStorage imageStorage;
+    private final boolean runOnStartup;
+
+    public ImageBlobMigration(JdbcTemplate jdbcTemplate, ImageStorage imageStorage,
+                              @Value("${images.migrate-blobs-on-startup:true}") boolean runOnStartup) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.imageStorage = imageStorage;
+        this.runOnStartup = runOnStartup;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        if (runOnStartup) {
+            migrate();
+        }
+    }
+
+    public int migrate() {
+        List<Long> postIds = jdbcTemplate.queryForList(
+            "SELECT post_id FROM post_images WHERE content_hash IS NULL AND image_data IS NOT NULL",
+            Long.class);
+        if (postIds.isEmpty()) {
+            return 0;
+        }
+
+        log.info("Moving {} images from post_images BLOBs to image storage", postIds.size());
+        int migrated = 0;
+        for (Long postId : postIds) {
+            StoredImage stored = jdbcTemplate.query(
+                "SELECT image_data FROM post_images WHERE post_id = ? AND content_hash IS NULL",
+                rs -> rs.next() ? store(rs.getBinaryStream("image_data")) : null,
+                postId);
+            if (stored == null) {
+                continue;
+            }
+            migrated += jdbcTemplate.update(
+                "UPDATE post_images SET content_hash = ?, size_bytes = ?, image_data = NULL " +
+                "WHERE post_id = ? AND content_hash IS NULL",
+                stored.getHash(), stored.getSize(), postId);
+        }
+        log.info("Moved {} images to image storage", migrated);
+        return migrated;
+    }
+
+    private StoredImage store(InputStream data) {
+        if (data == null) {
+            return null;
+        }
+        try (data) {
+            return imageStorage.store(data);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.myblog.storage;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Содержимое изображения, которое пишется в ответ кусками, не загружаясь в память целиком.
+ */
+public interface ImageContent {
+
+    long size();
+
+    void transferTo(long position, long count, WritableByteChannel target) throws IOException;
+
+    InputStream openStream() throws IOException;
+
+    static ImageContent ofBytes(byte[] data) {
+        return new ImageContent() {
+            @Override
+            public long size() {
+                return data.length;
+            }
+
+            @Override
+            public InputStream openStream() {
+                return new ByteArrayInputStream(data);
+            }
+
+            @Override
+            public void transferTo(long position, long count, WritableByteChannel target) throws IOException {
+                ByteBuffer buffer = ByteBuffer.wrap(data, (int) position, (int) count);
+                while (buffer.hasRemaining()) {
+                    target.write(buffer);
+                }
+            }
+        };
+    }
+}
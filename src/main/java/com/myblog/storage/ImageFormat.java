@@ -0,0 +1,59 @@
+package com.myblog.storage;
+
+import java.util.Optional;
+
+/**
+ * Форматы изображений, которые принимаются при загрузке; определяются по первым байтам файла.
+ */
+public enum ImageFormat {
+    JPEG("image/jpeg"),
+    PNG("image/png"),
+    GIF("image/gif"),
+    WEBP("image/webp"),
+    BMP("image/bmp");
+
+    // Сколько байт нужно прочитать, чтобы распознать любой из форматов
+    public static final int HEADER_LENGTH = 12;
+
+    private final String contentType;
+
+    ImageFormat(String contentType) {
+        this.contentType = contentType;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public static Optional<ImageFormat> detect(byte[] header) {
+        if (startsWith(header, 0xFF, 0xD8, 0xFF)) {
+            return Optional.of(JPEG);
+        }
+        if (startsWith(header, 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A)) {
+            return Optional.of(PNG);
+        }
+        if (startsWith(header, 'G', 'I', 'F', '8')) {
+            return Optional.of(GIF);
+        }
+        if (startsWith(header, 'R', 'I', 'F', 'F') && header.length >= 12
+                && header[8] == 'W' && header[9] == 'E' && header[10] == 'B' && header[11] == 'P') {
+            return Optional.of(WEBP);
+        }
+        if (startsWith(header, 'B', 'M')) {
+            return Optional.of(BMP);
+        }
+        return Optional.empty();
+    }
+
+    private static boolean startsWith(byte[] header, int... prefix) {
+        if (header.length < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if ((header[i] & 0xFF) != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
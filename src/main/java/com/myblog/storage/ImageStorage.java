@@ -0,0 +1,18 @@
+package com.myblog.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Optional;
+
+/**
+ * Хранилище содержимого изображений. Содержимое адресуется своим хэшем,
+ * поэтому одинаковые файлы хранятся один раз.
+ */
+public interface ImageStorage {
+
+    StoredImage store(InputStream data) throws IOException;
+
+    Optional<ImageContent> open(String hash) throws IOException;
+
+    void delete(String hash) throws IOException;
+}
@@ -0,0 +1,95 @@
+package com.myblog.storage;
+
+import com.myblog.exception.ImageTooLargeException;
+import com.myblog.exception.UnsupportedImageTypeException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Принимает загружаемое изображение потоком: формат определяется по первым байтам,
+ * размер проверяется по мере чтения, содержимое сразу пишется в хранилище.
+ */
+@Component
+public class ImageUploader {
+
+    private final ImageStorage imageStorage;
+    private final long maxSizeBytes;
+
+    public ImageUploader(ImageStorage imageStorage,
+                         @Value("${images.max-size-bytes:10485760}") long maxSizeBytes) {
+        this.imageStorage = imageStorage;
+        this.maxSizeBytes = maxSizeBytes;
+    }
+
+    public StoredImage upload(InputStream data) throws IOException {
+        InputStream limited = new BufferedInputStream(new SizeLimitInputStream(data, maxSizeBytes));
+
+        limited.mark(ImageFormat.HEADER_LENGTH);
+        byte[] header = limited.readNBytes(ImageFormat.HEADER_LENGTH);
+        limited.reset();
+        ImageFormat format = ImageFormat.detect(header)
+            .orElseThrow(() -> new UnsupportedImageTypeException("Unsupported image format"));
+
+        StoredImage stored = imageStorage.store(limited);
+        return new StoredImage(stored.getHash(), stored.getSize(), format.getContentType(), stored.isCreated());
+    }
+
+    // Убрать файл, который сохранила отменённая операция; уже бывшие в хранилище файлы остаются
+    public void discard(StoredImage image) throws IOException {
+        if (image.isCreated()) {
+            imageStorage.delete(image.getHash());
+        }
+    }
+
+    private static final class SizeLimitInputStream extends FilterInputStream {
+        private final long limit;
+        private long count;
+
+        private SizeLimitInputStream(InputStream in, long limit) {
+            super(in);
+            this.limit = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = super.read(b, off, len);
+            if (read > 0) {
+                count(read);
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count(skipped);
+            return skipped;
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        private void count(long read) {
+            count += read;
+            if (count > limit) {
+                throw new ImageTooLargeException("Image exceeds " + limit + " bytes");
+            }
+        }
+    }
+}
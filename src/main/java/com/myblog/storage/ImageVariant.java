@@ -0,0 +1,14 @@
+package com.myblog.storage;
+
+public class ImageVariant {
+    private final ImageContent content;
+    private final String contentType;
+
+    public ImageVariant(ImageContent content, String contentType) {
+        this.content = content;
+        this.contentType = contentType;
+    }
+
+    public ImageContent getContent() { return content; }
+    public String getContentType() { return contentType; }
+}
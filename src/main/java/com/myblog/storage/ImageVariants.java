@@ -0,0 +1,379 @@
+package com.myblog.storage;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Уменьшенные копии изображений (?w=&h=). Копии строятся через ImageIO в отдельном
+ * ограниченном пуле потоков и хранятся на диске; при превышении общего размера
+ * удаляются давно не запрошенные. Копия, отданная недавно (eviction-grace-ms), не удаляется:
+ * ответ читает файл уже после возврата из variant(). Одновременные запросы одной ещё
+ * не построенной копии ждут одну и ту же задачу. Размеры исходника читаются из заголовка:
+ * изображения больше max-source-pixels не уменьшаются, а сильно уменьшаемые
+ * декодируются с прореживанием, чтобы в памяти не оказался весь растр.
+ */
+@Component
+public class ImageVariants implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(ImageVariants.class);
+
+    private final Path directory;
+    private final long maxBytes;
+    private final int maxDimension;
+    private final long timeoutMillis;
+    private final long evictionGraceMillis;
+    private final long maxSourcePixels;
+    private final ThreadPoolExecutor executor;
+
+    // Построенные копии в порядке последнего обращения
+    private final LinkedHashMap<String, CachedFile> files = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+    // Варианты, которые строятся прямо сейчас; повторный запрос ждёт ту же задачу
+    private final Map<String, CompletableFuture<Path>> inFlight = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder generated = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public ImageVariants(@Value("${images.variants.dir}") String directory,
+                         @Value("${images.variants.max-size-bytes:268435456}") long maxBytes,
+                         @Value("${images.variants.max-dimension:2048}") int maxDimension,
+                         @Value("${images.variants.threads:2}") int threads,
+                         @Value("${images.variants.queue-size:32}") int queueSize,
+                         @Value("${images.variants.timeout-ms:10000}") long timeoutMillis,
+                         @Value("${images.variants.eviction-grace-ms:60000}") long evictionGraceMillis,
+                         @Value("${images.variants.max-source-pixels:50000000}") long maxSourcePixels) throws IOException {
+        this.directory = Path.of(directory).toAbsolutePath().normalize();
+        this.maxBytes = maxBytes;
+        this.maxDimension = maxDimension;
+        this.timeoutMillis = timeoutMillis;
+        this.evictionGraceMillis = evictionGraceMillis;
+        this.maxSourcePixels = maxSourcePixels;
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueSize), runnable -> {
+                Thread thread = new Thread(runnable, "image-resize-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+
+        Files.createDirectories(this.directory);
+        loadExisting();
+    }
+
+    public int getMaxDimension() {
+        return maxDimension;
+    }
+
+    /**
+     * Копия, вписанная в прямоугольник width x height (null — без ограничения по стороне).
+     * Если исходное изображение и так помещается, возвращается оно само. Исходник
+     * открывается, только если готовой копии нет; пусто — исходника нет.
+     */
+    public Optional<ImageVariant> variant(String hash, Original source, String contentType,
+                                          Integer width, Integer height) throws IOException {
+        String format = outputFormat(contentType);
+        String name = hash + "-" + (width != null ? width : 0) + "x" + (height != null ? height : 0) + "." + format;
+
+        Path path = directory.resolve(name);
+        if (touch(name) && Files.isRegularFile(path)) {
+            hits.increment();
+            return Optional.of(new ImageVariant(new FileSystemImageStorage.FileContent(path), "image/" + format));
+        }
+        Optional<ImageContent> opened = source.open();
+        if (opened.isEmpty()) {
+            return Optional.empty();
+        }
+        ImageContent original = opened.get();
+        if (fits(original, width, height)) {
+            return Optional.of(new ImageVariant(original, contentType));
+        }
+
+        CompletableFuture<Path> future = new CompletableFuture<>();
+        CompletableFuture<Path> running = inFlight.putIfAbsent(name, future);
+        if (running != null) {
+            future = running;
+        } else {
+            CompletableFuture<Path> task = future;
+            try {
+                executor.execute(() -> {
+                    try {
+                        task.complete(generate(original, format, width, height, path));
+                    } catch (Throwable e) {
+                        task.completeExceptionally(e);
+                    } finally {
+                        inFlight.remove(name, task);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // Очередь заполнена: ждущим этот же вариант тоже отказать
+                inFlight.remove(name, task);
+                task.completeExceptionally(e);
+                throw e;
+            }
+        }
+
+        Path result;
+        try {
+            result = future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while resizing image " + hash, e);
+        } catch (TimeoutException e) {
+            throw new IOException("Timed out resizing image " + hash, e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof UncheckedIOException io) {
+                throw io.getCause();
+            }
+            if (e.getCause() instanceof RejectedExecutionException rejected) {
+                throw rejected;
+            }
+            if (e.getCause() instanceof IllegalArgumentException invalid) {
+                throw invalid;
+            }
+            throw new IOException("Failed to resize image " + hash, e.getCause());
+        }
+        return Optional.of(new ImageVariant(new FileSystemImageStorage.FileContent(result), "image/" + format));
+    }
+
+    public Map<String, Long> stats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        synchronized (this) {
+            stats.put("files", (long) files.size());
+            stats.put("bytes", totalBytes);
+        }
+        stats.put("hits", hits.sum());
+        stats.put("generated", generated.sum());
+        stats.put("evictions", evictions.sum());
+        stats.put("queued", (long) executor.getQueue().size());
+        return stats;
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    private Path generate(ImageContent original, String format, Integer width, Integer height, Path target) {
+        try {
+            BufferedImage source;
+            int targetWidth;
+            int targetHeight;
+            try (InputStream in = original.openStream();
+                 ImageInputStream imageInput = ImageIO.createImageInputStream(in)) {
+                Iterator<ImageReader> readers = imageInput != null ? ImageIO.getImageReaders(imageInput) : null;
+                if (readers == null || !readers.hasNext()) {
+                    throw new IOException("Unreadable image");
+                }
+                ImageReader reader = readers.next();
+                try {
+                    reader.setInput(imageInput, true, true);
+                    int sourceWidth = reader.getWidth(0);
+                    int sourceHeight = reader.getHeight(0);
+                    checkPixels(sourceWidth, sourceHeight);
+
+                    double scale = scale(sourceWidth, sourceHeight, width, height);
+                    targetWidth = Math.max(1, (int) Math.round(sourceWidth * scale));
+                    targetHeight = Math.max(1, (int) Math.round(sourceHeight * scale));
+
+                    // Читать каждый step-й пиксель, оставляя не меньше двух исходных пикселей
+                    // на пиксель копии, чтобы сглаживание при уменьшении было не хуже
+                    ImageReadParam param = reader.getDefaultReadParam();
+                    int step = Math.max(1, (int) (1 / (scale * 2)));
+                    if (step > 1) {
+                        param.setSourceSubsampling(step, step, 0, 0);
+                    }
+                    source = reader.read(0, param);
+                } finally {
+                    reader.dispose();
+                }
+            }
+
+            // В JPEG и BMP нет прозрачности
+            boolean alpha = source.getColorModel().hasAlpha() && !format.equals("jpeg") && !format.equals("bmp");
+            BufferedImage resized = new BufferedImage(targetWidth, targetHeight,
+                alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+            Graphics2D graphics = resized.createGraphics();
+            try {
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                graphics.drawImage(source, 0, 0, targetWidth, targetHeight, null);
+            } finally {
+                graphics.dispose();
+            }
+
+            Path temp = Files.createTempFile(directory, "variant-", ".tmp");
+            try {
+                try (OutputStream out = Files.newOutputStream(temp)) {
+                    ImageIO.write(resized, format, out);
+                }
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+
+            generated.increment();
+            register(target.getFileName().toString(), Files.size(target), System.currentTimeMillis());
+            return target;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Размеры читаются из заголовка файла, без декодирования всего изображения
+    private boolean fits(ImageContent original, Integer width, Integer height) throws IOException {
+        try (InputStream in = original.openStream();
+             ImageInputStream imageInput = ImageIO.createImageInputStream(in)) {
+            Iterator<ImageReader> readers = imageInput != null ? ImageIO.getImageReaders(imageInput) : null;
+            if (readers == null || !readers.hasNext()) {
+                // Формат, который ImageIO не читает (WebP): отдаётся оригинал
+                return true;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(imageInput, true, true);
+                if (scale(reader.getWidth(0), reader.getHeight(0), width, height) >= 1.0) {
+                    return true;
+                }
+                // Отказать сразу, не занимая очередь уменьшения
+                checkPixels(reader.getWidth(0), reader.getHeight(0));
+                return false;
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private void checkPixels(int sourceWidth, int sourceHeight) {
+        if ((long) sourceWidth * sourceHeight > maxSourcePixels) {
+            throw new IllegalArgumentException("Image is too large to resize: " + sourceWidth + "x" + sourceHeight);
+        }
+    }
+
+    private static double scale(int sourceWidth, int sourceHeight, Integer width, Integer height) {
+        return Math.min(
+            width != null ? (double) width / sourceWidth : 1.0,
+            height != null ? (double) height / sourceHeight : 1.0);
+    }
+
+    // Есть ли копия в кэше; заодно отмечает обращение для LRU и время выдачи
+    private synchronized boolean touch(String name) {
+        CachedFile file = files.get(name);
+        if (file == null) {
+            return false;
+        }
+        file.servedAt = System.currentTimeMillis();
+        return true;
+    }
+
+    private synchronized void register(String name, long size, long servedAt) {
+        CachedFile previous = files.put(name, new CachedFile(size, servedAt));
+        totalBytes += size - (previous != null ? previous.size : 0);
+
+        long servedBefore = System.currentTimeMillis() - evictionGraceMillis;
+        Iterator<Map.Entry<String, CachedFile>> eldest = files.entrySet().iterator();
+        while (totalBytes > maxBytes && eldest.hasNext()) {
+            Map.Entry<String, CachedFile> entry = eldest.next();
+            if (entry.getKey().equals(name) || entry.getValue().servedAt > servedBefore) {
+                // Файл ещё может читаться ответом; удалится при одной из следующих записей
+                continue;
+            }
+            try {
+                Files.deleteIfExists(directory.resolve(entry.getKey()));
+            } catch (IOException e) {
+                log.warn("Failed to delete image variant {}", entry.getKey(), e);
+            }
+            totalBytes -= entry.getValue().size;
+            eldest.remove();
+            evictions.increment();
+        }
+    }
+
+    private void loadExisting() throws IOException {
+        List<Path> existing;
+        try (Stream<Path> stream = Files.list(directory)) {
+            existing = stream
+                .filter(Files::isRegularFile)
+                .sorted(Comparator.comparingLong(ImageVariants::lastModified))
+                .toList();
+        }
+        for (Path path : existing) {
+            String name = path.getFileName().toString();
+            if (name.endsWith(".tmp")) {
+                Files.deleteIfExists(path);
+            } else {
+                register(name, Files.size(path), 0);
+            }
+        }
+        log.info("Image variant cache: {} files, {} bytes", files.size(), totalBytes);
+    }
+
+    private static long lastModified(Path path) {
+        try {
+            return Files.getLastModifiedTime(path).toMillis();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    // ImageIO умеет записывать JPEG, PNG, GIF и BMP; остальное (WebP) сохраняется в PNG
+    private static String outputFormat(String contentType) {
+        return switch (contentType != null ? contentType : "") {
+            case "image/jpeg" -> "jpeg";
+            case "image/gif" -> "gif";
+            case "image/bmp" -> "bmp";
+            default -> "png";
+        };
+    }
+
+    @FunctionalInterface
+    public interface Original {
+        Optional<ImageContent> open() throws IOException;
+    }
+
+    private static final class CachedFile {
+        private final long size;
+        private long servedAt;
+
+        private CachedFile(long size, long servedAt) {
+            this.size = size;
+            this.servedAt = servedAt;
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.myblog.storage;
+
+public class StoredImage {
+    private final String hash;
+    private final long size;
+    private final String contentType;
+    // Файл появился в хранилище при этом сохранении, а не был там раньше
+    private final boolean created;
+
+    public StoredImage(String hash, long size) {
+        this(hash, size, null);
+    }
+
+    public StoredImage(String hash, long size, String contentType) {
+        this(hash, size, contentType, false);
+    }
+
+    public StoredImage(String hash, long size, String contentType, boolean created) {
+        this.hash = hash;
+        this.size = size;
+        this.contentType = contentType;
+        this.created = created;
+    }
+
+    public String getHash() { return hash; }
+    public long getSize() { return size; }
+    public String getContentType() { return contentType; }
+    public boolean isCreated() { return created; }
+}
@@ -3,9 +3,12 @@ CREATE TABLE IF NOT EXISTS posts (
     id BIGINT AUTO_INCREMENT PRIMARY KEY,
     title VARCHAR(500) NOT NULL,
     text TEXT NOT NULL,
+    preview VARCHAR(129),
     likes_count INT DEFAULT 0,
+    comments_count INT DEFAULT 0 NOT NULL,
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    deleted_at TIMESTAMP
 );
 
 -- Создание таблицы тегов
@@ -33,15 +36,72 @@ CREATE TABLE IF NOT EXISTS comments (
     FOREIGN KEY (post_id) REFERENCES posts(id) ON DELETE CASCADE
 );
 
+-- Счётчик комментариев хранится в posts; для существующей базы колонка
+-- добавляется пустой и один раз заполняется по таблице comments
+ALTER TABLE posts ADD COLUMN IF NOT EXISTS comments_count INT;
+UPDATE posts p SET comments_count = (SELECT COUNT(*) FROM comments c WHERE c.post_id = p.id)
+    WHERE p.comments_count IS NULL;
+ALTER TABLE posts ALTER COLUMN comments_count SET DEFAULT 0;
+ALTER TABLE posts ALTER COLUMN comments_count SET NOT NULL;
+
+-- Превью текста для ленты (первые 128 символов), чтобы список не читал TEXT целиком
+ALTER TABLE posts ADD COLUMN IF NOT EXISTS preview VARCHAR(129);
+UPDATE posts SET preview = CASE WHEN CHAR_LENGTH(text) > 128
+        THEN SUBSTRING(text, 1, 128) || '…' ELSE text END
+    WHERE preview IS NULL;
+
+-- Удалённый пост помечается deleted_at и скрывается из выборок;
+-- связанные строки и сам пост позже удаляет фоновая очистка
+ALTER TABLE posts ADD COLUMN IF NOT EXISTS deleted_at TIMESTAMP;
+
 -- Создание таблицы для хранения изображений
 CREATE TABLE IF NOT EXISTS post_images (
     post_id BIGINT PRIMARY KEY,
     image_data BLOB,
     content_type VARCHAR(100),
+    content_hash VARCHAR(64),
+    size_bytes BIGINT,
     FOREIGN KEY (post_id) REFERENCES posts(id) ON DELETE CASCADE
 );
 
+-- Содержимое изображений хранится в файлах, названных по SHA-256;
+-- image_data остаётся только у записей, ещё не перенесённых из BLOB
+ALTER TABLE post_images ADD COLUMN IF NOT EXISTS content_hash VARCHAR(64);
+ALTER TABLE post_images ADD COLUMN IF NOT EXISTS size_bytes BIGINT;
+-- Время загрузки — Last-Modified изображения
+ALTER TABLE post_images ADD COLUMN IF NOT EXISTS uploaded_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP;
+
+-- Готовые строки ленты (PostSummaryTable): обновляются вместе с постами,
+-- комментариями, лайками и тегами; удалённых постов здесь нет
+CREATE TABLE IF NOT EXISTS post_summary (
+    id BIGINT PRIMARY KEY,
+    title VARCHAR(500) NOT NULL,
+    preview VARCHAR(129),
+    tags VARCHAR(100) ARRAY,
+    likes_count INT DEFAULT 0 NOT NULL,
+    comments_count INT DEFAULT 0 NOT NULL,
+    created_at TIMESTAMP NOT NULL,
+    updated_at TIMESTAMP NOT NULL,
+    FOREIGN KEY (id) REFERENCES posts(id) ON DELETE CASCADE
+);
+-- для существующей базы заполняется по posts один раз
+INSERT INTO post_summary (id, title, preview, tags, likes_count, comments_count, created_at, updated_at)
+    SELECT p.id, p.title, p.preview,
+        (SELECT ARRAY_AGG(t.name ORDER BY t.id) FROM post_tags pt JOIN tags t ON t.id = pt.tag_id
+            WHERE pt.post_id = p.id),
+        COALESCE(p.likes_count, 0), p.comments_count, p.created_at, p.updated_at
+    FROM posts p
+    WHERE p.deleted_at IS NULL AND NOT EXISTS (SELECT 1 FROM post_summary s WHERE s.id = p.id);
+
 -- Индексы для оптимизации запросов
 CREATE INDEX IF NOT EXISTS idx_post_title ON posts(title);
 CREATE INDEX IF NOT EXISTS idx_tag_name ON tags(name);
 CREATE INDEX IF NOT EXISTS idx_comment_post_id ON comments(post_id);
+-- постраничная выдача комментариев по курсору (created_at, id)
+CREATE INDEX IF NOT EXISTS idx_comment_post_created_id ON comments(post_id, created_at, id);
+-- лента, курсор и потоковая выдача читают post_summary, индекс по posts больше не нужен
+DROP INDEX IF EXISTS idx_post_created_id;
+-- очередь фоновой очистки удалённых постов
+CREATE INDEX IF NOT EXISTS idx_post_deleted_at ON posts(deleted_at);
+-- лента из post_summary: один проход по индексу в порядке выдачи
+CREATE INDEX IF NOT EXISTS idx_post_summary_created_id ON post_summary(created_at DESC, id DESC);
@@ -0,0 +1,162 @@
+package com.myblog.controller;
+
+import com.myblog.model.Post;
+import com.myblog.model.PostImage;
+import com.myblog.model.PostRevision;
+import com.myblog.service.PostService;
+import com.myblog.storage.ImageContent;
+import com.myblog.storage.ImageVariant;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@ExtendWith(MockitoExtension.class)
+class PostControllerConditionalGetTest {
+
+    private static final String HASH = "a".repeat(64);
+    private static final long UPDATED_AT = 1_700_000_000_000L;
+
+    @Mock
+    private PostService postService;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        PostController controller = new PostController(postService, "no-cache", "no-cache", "public, max-age=300", false);
+        mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+    }
+
+    @Test
+    void testGetPostAnswersNotModifiedWithoutLoadingPost() throws Exception {
+        // Given
+        when(postService.getPostRevision(1L)).thenReturn(Optional.of(new PostRevision("100-5-2", UPDATED_AT)));
+
+        // When / Then
+        mockMvc.perform(get("/posts/1").header(HttpHeaders.IF_NONE_MATCH, "\"post-1-100-5-2\""))
+            .andExpect(status().isNotModified())
+            .andExpect(header().string(HttpHeaders.ETAG, "\"post-1-100-5-2\""))
+            .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache"));
+        verify(postService, never()).getPostById(any());
+    }
+
+    @Test
+    void testGetPostReturnsBodyWithEtagWhenChanged() throws Exception {
+        // Given
+        when(postService.getPostRevision(1L)).thenReturn(Optional.of(new PostRevision("100-6-2", UPDATED_AT)));
+        when(postService.getPostById(1L)).thenReturn(Optional.of(new Post(1L, "Title", "Text", null, 6, 2)));
+
+        // When / Then
+        mockMvc.perform(get("/posts/1").header(HttpHeaders.IF_NONE_MATCH, "\"post-1-100-5-2\""))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, "\"post-1-100-6-2\""))
+            .andExpect(content().string(containsString("\"likesCount\":6")));
+    }
+
+    @Test
+    void testGetPostHonorsIfModifiedSince() throws Exception {
+        // Given
+        when(postService.getPostRevision(1L)).thenReturn(Optional.of(new PostRevision("100-5-2", UPDATED_AT)));
+
+        // When / Then
+        mockMvc.perform(get("/posts/1").header(HttpHeaders.IF_MODIFIED_SINCE, UPDATED_AT))
+            .andExpect(status().isNotModified())
+            .andExpect(header().dateValue(HttpHeaders.LAST_MODIFIED, UPDATED_AT));
+        verify(postService, never()).getPostById(any());
+    }
+
+    @Test
+    void testGetPostReturnsBodyWhenModifiedSince() throws Exception {
+        // Given
+        when(postService.getPostRevision(1L)).thenReturn(Optional.of(new PostRevision("100-5-2", UPDATED_AT)));
+        when(postService.getPostById(1L)).thenReturn(Optional.of(new Post(1L, "Title", "Text", null, 5, 2)));
+
+        // When / Then
+        mockMvc.perform(get("/posts/1").header(HttpHeaders.IF_MODIFIED_SINCE, UPDATED_AT - 60_000))
+            .andExpect(status().isOk())
+            .andExpect(header().dateValue(HttpHeaders.LAST_MODIFIED, UPDATED_AT));
+    }
+
+    @Test
+    void testGetPostsAnswersNotModifiedForCurrentFeedVersion() throws Exception {
+        // Given
+        when(postService.getFeedVersion()).thenReturn(42L);
+
+        // When / Then
+        mockMvc.perform(get("/posts").param("search", "").param("pageSize", "10")
+                .header(HttpHeaders.IF_NONE_MATCH, "\"feed-42\""))
+            .andExpect(status().isNotModified());
+        verify(postService, never()).getPosts(any(), anyInt(), anyInt());
+    }
+
+    @Test
+    void testGetImageAnswersNotModifiedWithoutOpeningFile() throws Exception {
+        // Given
+        when(postService.getImage(1L)).thenReturn(Optional.of(new PostImage(1L, HASH, "image/png", 10)));
+
+        // When / Then
+        mockMvc.perform(get("/posts/1/image").header(HttpHeaders.IF_NONE_MATCH, "\"" + HASH + "\""))
+            .andExpect(status().isNotModified())
+            .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "public, max-age=300"));
+        verify(postService, never()).openImageVariant(any(), any(), any());
+    }
+
+    @Test
+    void testGetImageServesRequestedRange() throws Exception {
+        // Given
+        PostImage image = new PostImage(1L, HASH, "image/png", 10);
+        when(postService.getImage(1L)).thenReturn(Optional.of(image));
+        when(postService.openImageVariant(image, null, null)).thenReturn(Optional.of(
+            new ImageVariant(ImageContent.ofBytes("0123456789".getBytes()), "image/png")));
+
+        // When / Then
+        mockMvc.perform(get("/posts/1/image").header(HttpHeaders.RANGE, "bytes=2-4"))
+            .andExpect(status().isPartialContent())
+            .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 2-4/10"))
+            .andExpect(header().string(HttpHeaders.ETAG, "\"" + HASH + "\""))
+            .andExpect(content().string("234"));
+    }
+
+    @Test
+    void testGetImageVariantUsesSizeInEtag() throws Exception {
+        // Given
+        PostImage image = new PostImage(1L, HASH, "image/png", 10);
+        when(postService.getImage(1L)).thenReturn(Optional.of(image));
+
+        // When / Then
+        mockMvc.perform(get("/posts/1/image").param("w", "100")
+                .header(HttpHeaders.IF_NONE_MATCH, "\"" + HASH + "-100x0\""))
+            .andExpect(status().isNotModified());
+        verify(postService, never()).openImageVariant(any(), any(), any());
+    }
+
+    @Test
+    void testGetImageHonorsIfModifiedSince() throws Exception {
+        // Given
+        PostImage image = new PostImage(1L, HASH, "image/png", 10);
+        image.setUploadedAt(LocalDateTime.of(2024, 5, 1, 12, 0));
+        when(postService.getImage(1L)).thenReturn(Optional.of(image));
+        long uploadedAt = Timestamp.valueOf(image.getUploadedAt()).getTime();
+
+        // When / Then
+        mockMvc.perform(get("/posts/1/image").header(HttpHeaders.IF_MODIFIED_SINCE, uploadedAt))
+            .andExpect(status().isNotModified())
+            .andExpect(header().dateValue(HttpHeaders.LAST_MODIFIED, uploadedAt));
+        verify(postService, never()).openImageVariant(any(), any(), any());
+    }
+}
@@ -1,35 +1,79 @@
 package com.myblog.dao;
 
 import com.myblog.config.DatabaseConfig;
+import com.myblog.dao.impl.CommentDaoImpl;
 import com.myblog.dao.impl.PostDaoImpl;
 import com.myblog.dao.impl.TagDaoImpl;
+import com.myblog.dao.support.ContentVersion;
+import com.myblog.dao.support.KeysetCursor;
+import com.myblog.dao.support.LikeCounterBuffer;
+import com.myblog.dao.support.PostCache;
+import com.myblog.dao.support.PostCountCache;
+import com.myblog.dao.support.PostPurgeWorker;
+import com.myblog.dao.support.PostSummaryTable;
+import com.myblog.dao.support.PostWriteListener;
+import com.myblog.dao.support.TagBitmapIndex;
+import com.myblog.dao.support.TagDictionary;
+import com.myblog.dao.support.TransactionTagMemo;
+import com.myblog.model.Comment;
 import com.myblog.model.Post;
+import com.myblog.model.PostImage;
+import com.myblog.search.PostSearchIndex;
+import com.myblog.storage.StoredImage;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.context.transaction.TestTransaction;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 @ExtendWith(SpringExtension.class)
-@ContextConfiguration(classes = {DatabaseConfig.class, PostDaoImpl.class, TagDaoImpl.class})
+@ContextConfiguration(classes = {DatabaseConfig.class, PostDaoImpl.class, TagDaoImpl.class, TransactionTagMemo.class,
+        CommentDaoImpl.class, PostCountCache.class, PostSearchIndex.class,
+        TagBitmapIndex.class, PostCache.class, LikeCounterBuffer.class, ContentVersion.class,
+        TagDictionary.class, PostPurgeWorker.class, PostSummaryTable.class, PostWriteListener.class})
+// Лайки сбрасываются в БД только явным вызовом flush() из теста
+@TestPropertySource(properties = "likes.write-behind.flush-interval-ms=3600000")
 @Transactional
 class PostDaoIntegrationTest {
 
     @Autowired
     private PostDao postDao;
 
+    @Autowired
+    private CommentDao commentDao;
+
     @Autowired
     private JdbcTemplate jdbcTemplate;
 
+    @Autowired
+    private LikeCounterBuffer likeCounterBuffer;
+
+    @Autowired
+    private PostPurgeWorker postPurgeWorker;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
     @BeforeEach
     void setUp() {
         jdbcTemplate.execute("DELETE FROM post_images");
@@ -83,6 +127,96 @@ class PostDaoIntegrationTest {
         assertEquals(2, posts.size());
     }
 
+    @Test
+    void testFindAllLoadsTagsForEveryPost() {
+        // Given
+        Post post1 = new Post();
+        post1.setTitle("First Post");
+        post1.setText("First content");
+        post1.setTags(Arrays.asList("java", "spring"));
+        Post created1 = postDao.create(post1);
+
+        Post post2 = new Post();
+        post2.setTitle("Second Post");
+        post2.setText("Second content");
+        post2.setTags(Arrays.asList());
+        Post created2 = postDao.create(post2);
+
+        // When
+        List<Post> posts = postDao.findAll("", 1, 10);
+
+        // Then
+        assertEquals(2, posts.size());
+        for (Post post : posts) {
+            if (post.getId().equals(created1.getId())) {
+                assertEquals(Arrays.asList("java", "spring"), post.getTags());
+            } else {
+                assertEquals(created2.getId(), post.getId());
+                assertTrue(post.getTags().isEmpty());
+            }
+        }
+    }
+
+    @Test
+    void testPostsShareTagNameInstances() {
+        // Given
+        for (int i = 0; i < 2; i++) {
+            Post post = new Post();
+            post.setTitle("Shared " + i);
+            post.setText("Content");
+            post.setTags(Arrays.asList("shared"));
+            postDao.create(post);
+        }
+
+        // When
+        List<Post> posts = postDao.findAll("#shared", 1, 10);
+
+        // Then
+        assertEquals(2, posts.size());
+        assertSame(posts.get(0).getTags().get(0), posts.get(1).getTags().get(0));
+    }
+
+    @Test
+    void testFindAfterWalksFeedWithCursor() {
+        // Given
+        for (int i = 1; i <= 3; i++) {
+            Post post = new Post();
+            post.setTitle("Post " + i);
+            post.setText("Content");
+            post.setTags(Arrays.asList());
+            postDao.create(post);
+        }
+
+        // When
+        List<Post> firstPage = postDao.findAfter("", null, 2);
+        Post last = firstPage.get(firstPage.size() - 1);
+        List<Post> secondPage = postDao.findAfter("",
+            new KeysetCursor(last.getCreatedAt(), last.getId()), 2);
+
+        // Then
+        assertEquals(2, firstPage.size());
+        assertEquals(1, secondPage.size());
+        assertEquals(postDao.findAll("", 2, 2).get(0).getId(), secondPage.get(0).getId());
+    }
+
+    @Test
+    void testFindAllReturnsPreviewInsteadOfFullText() {
+        // Given
+        String longText = "a".repeat(200);
+        Post post = new Post();
+        post.setTitle("Long Post");
+        post.setText(longText);
+        post.setTags(Arrays.asList());
+        Post createdPost = postDao.create(post);
+
+        // When
+        List<Post> posts = postDao.findAll("", 1, 10);
+
+        // Then
+        assertEquals("a".repeat(128) + "…", posts.get(0).getText());
+        assertEquals(longText, postDao.findById(createdPost.getId()).get().getText());
+    }
+
     @Test
     void testSearchPostsByTitle() {
         // Given
@@ -106,6 +240,251 @@ class PostDaoIntegrationTest {
         assertEquals("Java Tutorial", posts.get(0).getTitle());
     }
 
+    @Test
+    void testSearchPostsByTextRankedByRelevance() {
+        // Given
+        Post post1 = new Post();
+        post1.setTitle("Notes");
+        post1.setText("Some words about java");
+        post1.setTags(Arrays.asList("java"));
+        postDao.create(post1);
+
+        Post post2 = new Post();
+        post2.setTitle("Java Generics");
+        post2.setText("Type erasure explained");
+        post2.setTags(Arrays.asList("java"));
+        postDao.create(post2);
+
+        Post post3 = new Post();
+        post3.setTitle("Java Streams");
+        post3.setText("Collectors");
+        post3.setTags(Arrays.asList("python"));
+        postDao.create(post3);
+
+        // When
+        List<Post> posts = postDao.findAll("java #java", 1, 10);
+
+        // Then
+        assertEquals(2, posts.size());
+        assertEquals("Java Generics", posts.get(0).getTitle());
+        assertEquals("Notes", posts.get(1).getTitle());
+        assertEquals(2, postDao.getTotalCount("java #java"));
+    }
+
+    @Test
+    void testStreamSliceMatchesFindSlice() throws Exception {
+        // Given
+        for (int i = 0; i < 4; i++) {
+            Post post = new Post();
+            post.setTitle("Java post " + i);
+            post.setText("Content " + i);
+            post.setTags(i % 2 == 0 ? Arrays.asList("java", "spring") : Arrays.asList("java"));
+            postDao.create(post);
+        }
+        postDao.incrementLikes(postDao.findAll("", 1, 1).get(0).getId());
+
+        for (String search : Arrays.asList("", "#spring", "java #java", "post #java #spring")) {
+            // When
+            List<String> streamed = new ArrayList<>();
+            postDao.streamSlice(search, 1, 2, (id, title, preview, tags, likesCount, commentsCount) ->
+                streamed.add(id + " " + title + " " + preview + " " + Arrays.asList(tags) + " " + likesCount + " " + commentsCount));
+
+            // Then
+            List<String> expected = postDao.findSlice(search, 1, 2).stream()
+                .map(p -> p.getId() + " " + p.getTitle() + " " + p.getText() + " " + p.getTags() + " "
+                    + p.getLikesCount() + " " + p.getCommentsCount())
+                .toList();
+            assertEquals(expected, streamed, search);
+        }
+    }
+
+    @Test
+    void testExportAfterGroupsCommentsAndResumes() throws Exception {
+        // Given
+        Post first = new Post();
+        first.setTitle("First");
+        first.setText("First text");
+        first.setTags(Arrays.asList("java", "spring"));
+        Long firstId = postDao.create(first).getId();
+        commentDao.create(new Comment(null, "One", firstId));
+        commentDao.create(new Comment(null, "Two", firstId));
+
+        Post second = new Post();
+        second.setTitle("Second");
+        second.setText("Second text");
+        second.setTags(Arrays.asList());
+        Long secondId = postDao.create(second).getId();
+
+        // When
+        List<String> exported = new ArrayList<>();
+        postDao.exportAfter(null, (post, comments) -> exported.add(post.getId() + " " + post.getText() + " "
+            + post.getTags() + " " + comments.stream().map(Comment::getText).toList()));
+        List<Long> resumed = new ArrayList<>();
+        postDao.exportAfter(firstId, (post, comments) -> resumed.add(post.getId()));
+
+        // Then
+        assertEquals(Arrays.asList(
+            firstId + " First text [java, spring] [One, Two]",
+            secondId + " Second text [] []"), exported.subList(exported.size() - 2, exported.size()));
+        assertEquals(List.of(secondId), resumed);
+    }
+
+    @Test
+    void testCreateAllInsertsBatchWithTags() {
+        // Given
+        Post first = new Post(null, "Batch first", "Imported text", Arrays.asList("#import", "java"), 5, 0);
+        Post second = new Post(null, "Batch second", "Imported text", Arrays.asList("import"), null, 0);
+
+        // When
+        postDao.createAll(Arrays.asList(first, second));
+
+        // Then
+        assertNotNull(first.getId());
+        assertTrue(second.getId() > first.getId());
+        Post stored = postDao.findById(first.getId()).get();
+        assertEquals(5, stored.getLikesCount());
+        assertEquals(stored.getTags(), first.getTags());
+        assertEquals(0, postDao.findById(second.getId()).get().getLikesCount());
+        assertEquals(2, postDao.getTotalCount("#import"));
+        assertEquals(2, postDao.findAll("imported", 1, 10).size());
+    }
+
+    @Test
+    void testFindByIdsKeepsRequestOrderAndSkipsMissing() {
+        // Given
+        Post first = postDao.create(new Post(null, "First", "First text", Arrays.asList("java"), 0, 0));
+        Post second = postDao.create(new Post(null, "Second", "Second text", Arrays.asList(), 0, 0));
+        commentDao.create(new Comment(null, "Comment", second.getId()));
+
+        // When
+        List<Post> posts = postDao.findByIds(Arrays.asList(second.getId(), -1L, first.getId(), second.getId()));
+
+        // Then
+        assertEquals(2, posts.size());
+        assertEquals(second.getId(), posts.get(0).getId());
+        assertEquals("Second text", posts.get(0).getText());
+        assertEquals(1, posts.get(0).getCommentsCount());
+        assertEquals(first.getId(), posts.get(1).getId());
+        assertEquals(List.of("java"), posts.get(1).getTags());
+    }
+
+    @Test
+    void testUpdateAllAndDeleteAllWorkOnSets() {
+        // Given
+        Post first = postDao.create(new Post(null, "First", "First text", Arrays.asList("java", "spring"), 0, 0));
+        Post second = postDao.create(new Post(null, "Second", "Second text", Arrays.asList("java"), 0, 0));
+        commentDao.create(new Comment(null, "Comment", second.getId()));
+
+        // When
+        List<Post> updated = postDao.updateAll(Arrays.asList(
+            new Post(first.getId(), "First v2", "Batch text", Arrays.asList("#spring", "kotlin"), null, null),
+            new Post(-1L, "Missing", "Text", null, null, null)));
+        Set<Long> deleted = postDao.deleteAll(Arrays.asList(second.getId(), -2L));
+
+        // Then
+        assertEquals(1, updated.size());
+        assertEquals(postDao.findById(first.getId()).get().getTags(), updated.get(0).getTags());
+        assertEquals(0, updated.get(0).getCommentsCount());
+        assertEquals(1, postDao.getTotalCount("#kotlin"));
+        assertEquals(0, postDao.getTotalCount("#java"));
+        assertEquals(List.of(first.getId()), postDao.findAll("batch", 1, 10).stream().map(Post::getId).toList());
+
+        assertEquals(Set.of(second.getId()), deleted);
+        assertTrue(postDao.findById(second.getId()).isEmpty());
+        postPurgeWorker.purge();
+        assertEquals(0, commentDao.countByPostId(second.getId()));
+    }
+
+    @Test
+    void testFeedSummaryFollowsWrites() {
+        // Given
+        Post post = postDao.create(new Post(null, "Summary", "x".repeat(200), Arrays.asList("java"), 0, 0));
+
+        // When
+        post.setTitle("Summary v2");
+        post.setTags(Arrays.asList("java", "spring"));
+        postDao.update(post);
+        commentDao.create(new Comment(null, "Comment", post.getId()));
+        postDao.incrementLikes(post.getId());
+        likeCounterBuffer.flush();
+
+        // Then
+        Post summary = jdbcTemplate.queryForObject(
+            "SELECT title, preview, tags, likes_count, comments_count FROM post_summary WHERE id = ?",
+            (rs, rowNum) -> {
+                Post row = new Post();
+                row.setTitle(rs.getString("title"));
+                row.setText(rs.getString("preview"));
+                row.setTags(Arrays.stream((Object[]) rs.getArray("tags").getArray()).map(String.class::cast).toList());
+                row.setLikesCount(rs.getInt("likes_count"));
+                row.setCommentsCount(rs.getInt("comments_count"));
+                return row;
+            }, post.getId());
+        assertEquals("Summary v2", summary.getTitle());
+        assertEquals(129, summary.getText().length());
+        assertEquals(Arrays.asList("java", "spring"), summary.getTags());
+        assertEquals(1, summary.getLikesCount());
+        assertEquals(1, summary.getCommentsCount());
+
+        Post inFeed = postDao.findAll(null, 1, 10).get(0);
+        assertEquals(summary.getTags(), inFeed.getTags());
+        assertEquals(1, inFeed.getCommentsCount());
+
+        postDao.delete(post.getId());
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM post_summary", Integer.class));
+    }
+
+    @Test
+    void testDeletedPostIsHiddenUntilPurged() {
+        // Given
+        Post kept = postDao.create(new Post(null, "Kept", "Text", Arrays.asList("java"), 0, 0));
+        Post removed = postDao.create(new Post(null, "Removed", "Text", Arrays.asList("java"), 0, 0));
+        commentDao.create(new Comment(null, "One", removed.getId()));
+        commentDao.create(new Comment(null, "Two", removed.getId()));
+        assertEquals(2, postDao.getTotalCount("#java"));
+
+        // When
+        postDao.delete(removed.getId());
+
+        // Then
+        assertTrue(postDao.findById(removed.getId()).isEmpty());
+        assertEquals(List.of(kept.getId()), postDao.findAll(null, 1, 10).stream().map(Post::getId).toList());
+        assertEquals(1, postDao.getTotalCount(null));
+        assertEquals(1, postDao.getTotalCount("#java"));
+        assertEquals(1L, postPurgeWorker.stats().get("backlogPosts"));
+        assertEquals(2, commentDao.countByPostId(removed.getId()));
+
+        // Пост и связанные строки удаляются очисткой
+        assertEquals(1, postPurgeWorker.purge());
+        assertEquals(0L, postPurgeWorker.stats().get("backlogPosts"));
+        assertEquals(0, commentDao.countByPostId(removed.getId()));
+        assertEquals(0, jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM posts WHERE id = ?", Integer.class, removed.getId()));
+        assertEquals(0, jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM post_tags WHERE post_id = ?", Integer.class, removed.getId()));
+    }
+
+    @Test
+    void testRolledBackDeleteKeepsIndexesAndPendingLikes() {
+        // Given: пост закоммичен; тег только для этого теста, после коммита он остаётся в словаре тегов
+        Post post = postDao.create(new Post(null, "Rollback", "Survivor text", Arrays.asList("rollback-delete"), 0, 0));
+        TestTransaction.flagForCommit();
+        TestTransaction.end();
+        TestTransaction.start();
+        postDao.incrementLikes(post.getId());
+
+        // When
+        postDao.delete(post.getId());
+        TestTransaction.end();
+        TestTransaction.start();
+
+        // Then
+        assertTrue(postDao.findById(post.getId()).isPresent());
+        assertEquals(1, postDao.getTotalCount("#rollback-delete"));
+        assertEquals(List.of(post.getId()), postDao.findAll("survivor", 1, 10).stream().map(Post::getId).toList());
+        assertEquals(1, postDao.findById(post.getId()).get().getLikesCount());
+    }
+
     @Test
     void testSearchPostsByTag() {
         // Given
@@ -129,6 +508,36 @@ class PostDaoIntegrationTest {
         assertEquals("Post 1", posts.get(0).getTitle());
     }
 
+    @Test
+    void testSearchPostsByMultipleTags() {
+        // Given
+        Post post1 = new Post();
+        post1.setTitle("Post 1");
+        post1.setText("Content");
+        post1.setTags(Arrays.asList("java", "spring"));
+        Post created1 = postDao.create(post1);
+
+        Post post2 = new Post();
+        post2.setTitle("Post 2");
+        post2.setText("Content");
+        post2.setTags(Arrays.asList("java"));
+        Post created2 = postDao.create(post2);
+
+        // When
+        created2.setTags(Arrays.asList("java", "spring"));
+        postDao.update(created2);
+        created1.setTags(Arrays.asList("spring"));
+        postDao.update(created1);
+
+        // Then
+        List<Post> posts = postDao.findAll("#java #spring", 1, 10);
+        assertEquals(1, posts.size());
+        assertEquals("Post 2", posts.get(0).getTitle());
+        assertEquals(1, postDao.getTotalCount("#java #spring"));
+        assertEquals(2, postDao.getTotalCount("#spring"));
+        assertEquals(0, postDao.getTotalCount("#unknown"));
+    }
+
     @Test
     void testUpdatePost() {
         // Given
@@ -142,7 +551,7 @@ class PostDaoIntegrationTest {
         createdPost.setTitle("Updated Title");
         createdPost.setText("Updated content");
         createdPost.setTags(Arrays.asList("tag2", "tag3"));
-        Post updatedPost = postDao.update(createdPost);
+        Post updatedPost = postDao.update(createdPost).orElseThrow();
 
         // Then
         assertEquals("Updated Title", updatedPost.getTitle());
@@ -150,6 +559,29 @@ class PostDaoIntegrationTest {
         assertEquals(2, updatedPost.getTags().size());
     }
 
+    @Test
+    void testUpdatePostRelinksOnlyChangedTags() {
+        // Given
+        Post post = new Post();
+        post.setTitle("Tagged Post");
+        post.setText("Tagged content");
+        post.setTags(Arrays.asList("keep", "drop", "#keep"));
+        Post createdPost = postDao.create(post);
+        Long keepId = jdbcTemplate.queryForObject("SELECT id FROM tags WHERE name = 'keep'", Long.class);
+
+        // When
+        createdPost.setTags(Arrays.asList("keep", "add"));
+        Post updatedPost = postDao.update(createdPost).orElseThrow();
+
+        // Then
+        assertEquals(List.of("keep", "add"), updatedPost.getTags());
+        assertEquals(keepId, jdbcTemplate.queryForObject(
+            "SELECT tag_id FROM post_tags pt JOIN tags t ON t.id = pt.tag_id WHERE pt.post_id = ? AND t.name = 'keep'",
+            Long.class, createdPost.getId()));
+        assertEquals(1, postDao.findAll("#add", 1, 10).size());
+        assertEquals(0, postDao.findAll("#drop", 1, 10).size());
+    }
+
     @Test
     void testDeletePost() {
         // Given
@@ -186,6 +618,322 @@ class PostDaoIntegrationTest {
         assertEquals(2, updatedPost.get().getLikesCount());
     }
 
+    @Test
+    void testLikesAreMergedWithPendingAndFlushed() {
+        // Given
+        Post post = new Post();
+        post.setTitle("Test Post");
+        post.setText("Test content");
+        post.setTags(Arrays.asList());
+        Post createdPost = postDao.create(post);
+
+        // When
+        postDao.incrementLikes(createdPost.getId());
+        postDao.incrementLikes(createdPost.getId());
+        int likesCount = postDao.incrementLikes(createdPost.getId());
+        int afterUnlike = postDao.decrementLikes(createdPost.getId());
+        likeCounterBuffer.flush();
+
+        // Then
+        assertEquals(3, likesCount);
+        assertEquals(2, afterUnlike);
+        Integer persisted = jdbcTemplate.queryForObject(
+            "SELECT likes_count FROM posts WHERE id = ?", Integer.class, createdPost.getId());
+        assertEquals(2, persisted);
+        assertEquals(2, postDao.findById(createdPost.getId()).get().getLikesCount());
+    }
+
+    @Test
+    void testDecrementLikesDoesNotGoBelowZero() {
+        // Given
+        Post post = new Post();
+        post.setTitle("Test Post");
+        post.setText("Test content");
+        post.setTags(Arrays.asList());
+        Post createdPost = postDao.create(post);
+
+        // When
+        int likesCount = postDao.decrementLikes(createdPost.getId());
+        likeCounterBuffer.flush();
+
+        // Then
+        assertEquals(0, likesCount);
+        assertEquals(0, postDao.findById(createdPost.getId()).get().getLikesCount());
+    }
+
+    @Test
+    void testRevisionAndContentVersionChangeOnLike() {
+        // Given
+        Post post = new Post();
+        post.setTitle("Test Post");
+        post.setText("Test content");
+        post.setTags(Arrays.asList());
+        Post createdPost = postDao.create(post);
+        String revision = postDao.findRevision(createdPost.getId()).orElseThrow().getTag();
+        long version = postDao.getContentVersion();
+
+        // When
+        postDao.incrementLikes(createdPost.getId());
+
+        // Then
+        assertNotEquals(revision, postDao.findRevision(createdPost.getId()).orElseThrow().getTag());
+        assertTrue(postDao.getContentVersion() > version);
+        assertTrue(postDao.findRevision(-1L).isEmpty());
+    }
+
+    @Test
+    void testImageReferenceIsFoundByHash() {
+        // Given
+        Post post = postDao.create(new Post(null, "Image", "Content", Arrays.asList(), 0, 0));
+
+        // When
+        postDao.saveImage(post.getId(), new StoredImage("c".repeat(64), 10), "image/png");
+
+        // Then
+        assertTrue(postDao.isImageReferenced("c".repeat(64)));
+        assertFalse(postDao.isImageReferenced("d".repeat(64)));
+    }
+
+    @Test
+    void testSaveImageReplacesStoredReference() {
+        // Given
+        Post post = new Post();
+        post.setTitle("Test Post");
+        post.setText("Test content");
+        post.setTags(Arrays.asList());
+        Post createdPost = postDao.create(post);
+
+        // When
+        postDao.saveImage(createdPost.getId(), new StoredImage("a".repeat(64), 10), "image/png");
+        postDao.saveImage(createdPost.getId(), new StoredImage("b".repeat(64), 20), "image/jpeg");
+
+        // Then
+        Optional<PostImage> image = postDao.findImage(createdPost.getId());
+        assertTrue(image.isPresent());
+        assertEquals("b".repeat(64), image.get().getContentHash());
+        assertEquals("image/jpeg", image.get().getContentType());
+        assertEquals(20, image.get().getSize());
+        assertTrue(postDao.findImage(-1L).isEmpty());
+    }
+
+    @Test
+    void testWritesReturnStoredValuesWithoutReselect() {
+        // Given
+        Post post = new Post();
+        post.setTitle("Test Post");
+        post.setText("Test content");
+        post.setTags(Arrays.asList("#zeta", "alpha", "zeta", " "));
+
+        // When
+        Post created = postDao.create(post);
+        Post stored = postDao.findById(created.getId()).get();
+
+        // Then
+        assertEquals(stored.getCreatedAt(), created.getCreatedAt());
+        assertEquals(stored.getUpdatedAt(), created.getUpdatedAt());
+        assertEquals(stored.getTags(), created.getTags());
+
+        // When
+        created.setTitle("Updated");
+        created.setTags(Arrays.asList("alpha", "beta"));
+        Post updated = postDao.update(created).orElseThrow();
+        stored = postDao.findById(created.getId()).get();
+
+        // Then
+        assertEquals(stored.getUpdatedAt(), updated.getUpdatedAt());
+        assertEquals(stored.getTags(), updated.getTags());
+        assertEquals(stored.getCommentsCount(), updated.getCommentsCount());
+
+        Comment comment = commentDao.create(new Comment(null, "Comment", created.getId()));
+        Comment storedComment = commentDao.findById(comment.getId()).get();
+        assertEquals(storedComment.getCreatedAt(), comment.getCreatedAt());
+        assertEquals(storedComment.getUpdatedAt(), comment.getUpdatedAt());
+    }
+
+    @Test
+    void testCommentsCountFollowsCommentWrites() {
+        // Given
+        Post post = new Post();
+        post.setTitle("Test Post");
+        post.setText("Test content");
+        post.setTags(Arrays.asList());
+        Post createdPost = postDao.create(post);
+
+        // When
+        Comment first = commentDao.create(new Comment(null, "First", createdPost.getId()));
+        commentDao.create(new Comment(null, "Second", createdPost.getId()));
+        commentDao.delete(first.getId());
+
+        // Then
+        assertEquals(1, postDao.findById(createdPost.getId()).get().getCommentsCount());
+        assertEquals(1, postDao.findAll("", 1, 10).get(0).getCommentsCount());
+    }
+
+    @Test
+    void testConcurrentDeletesOfOneCommentDecrementOnce() throws Exception {
+        // Given: пост и комментарий закоммичены, удаления идут в своих транзакциях
+        Post post = postDao.create(new Post(null, "Concurrent", "Content", Arrays.asList(), 0, 0));
+        commentDao.create(new Comment(null, "Keep", post.getId()));
+        Comment comment = commentDao.create(new Comment(null, "Delete", post.getId()));
+        TestTransaction.flagForCommit();
+        TestTransaction.end();
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        CountDownLatch start = new CountDownLatch(1);
+
+        try {
+            // When
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    transaction.executeWithoutResult(status -> commentDao.delete(comment.getId()));
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+
+            // Then
+            assertEquals(1, jdbcTemplate.queryForObject(
+                "SELECT comments_count FROM posts WHERE id = ?", Integer.class, post.getId()));
+            assertEquals(1, jdbcTemplate.queryForObject(
+                "SELECT comments_count FROM post_summary WHERE id = ?", Integer.class, post.getId()));
+        } finally {
+            executor.shutdown();
+            transaction.executeWithoutResult(status -> {
+                jdbcTemplate.update("DELETE FROM comments WHERE post_id = ?", post.getId());
+                jdbcTemplate.update("DELETE FROM post_summary WHERE id = ?", post.getId());
+                jdbcTemplate.update("DELETE FROM posts WHERE id = ?", post.getId());
+            });
+            TestTransaction.start();
+        }
+    }
+
+    @Test
+    void testUpdateOfDeletedPostReturnsEmpty() {
+        // Given
+        Post post = postDao.create(new Post(null, "Deleted", "Content", Arrays.asList(), 0, 0));
+        postDao.delete(post.getId());
+
+        // When
+        post.setTitle("Changed");
+        Optional<Post> updated = postDao.update(post);
+
+        // Then
+        assertTrue(updated.isEmpty());
+        assertEquals("Deleted", jdbcTemplate.queryForObject(
+            "SELECT title FROM posts WHERE id = ?", String.class, post.getId()));
+    }
+
+    @Test
+    void testConcurrentCreatesWithSameNewTagBothSucceed() throws Exception {
+        // Given: первая транзакция создала тег, но ещё не закоммитила
+        TestTransaction.end();
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        CountDownLatch firstCreated = new CountDownLatch(1);
+        List<Long> postIds = new ArrayList<>();
+
+        try {
+            // When
+            Future<Long> first = executor.submit(() -> transaction.execute(status -> {
+                Long id = postDao.create(new Post(null, "First", "Content", Arrays.asList("race-tag"), 0, 0)).getId();
+                firstCreated.countDown();
+                try {
+                    // Вторая транзакция успевает упереться в незакоммиченный тег
+                    Thread.sleep(300);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return id;
+            }));
+            firstCreated.await();
+            Future<Long> second = executor.submit(() -> transaction.execute(status ->
+                postDao.create(new Post(null, "Second", "Content", Arrays.asList("race-tag"), 0, 0)).getId()));
+            postIds.add(first.get());
+            postIds.add(second.get());
+
+            // Then
+            assertEquals(1, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM tags WHERE name = 'race-tag'", Integer.class));
+            assertEquals(2, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM post_tags pt JOIN tags t ON t.id = pt.tag_id WHERE t.name = 'race-tag'",
+                Integer.class));
+        } finally {
+            executor.shutdown();
+            transaction.executeWithoutResult(status -> {
+                for (Long id : postIds) {
+                    jdbcTemplate.update("DELETE FROM post_tags WHERE post_id = ?", id);
+                    jdbcTemplate.update("DELETE FROM post_summary WHERE id = ?", id);
+                    jdbcTemplate.update("DELETE FROM posts WHERE id = ?", id);
+                }
+            });
+            TestTransaction.start();
+        }
+    }
+
+    @Test
+    void testCommentOnDeletedPostIsRejected() {
+        // Given
+        Post post = postDao.create(new Post(null, "Deleted", "Content", Arrays.asList(), 0, 0));
+        postDao.delete(post.getId());
+
+        // When / Then
+        assertThrows(IllegalArgumentException.class,
+            () -> commentDao.create(new Comment(null, "Late", post.getId())));
+        assertEquals(0, jdbcTemplate.queryForObject(
+            "SELECT comments_count FROM posts WHERE id = ?", Integer.class, post.getId()));
+        assertEquals(0, commentDao.countByPostId(post.getId()));
+    }
+
+    @Test
+    void testCommentPagesFollowCursorWithoutGapsOrDuplicates() {
+        // Given
+        Post post = new Post();
+        post.setTitle("Test Post");
+        post.setText("Test content");
+        post.setTags(Arrays.asList());
+        Long postId = postDao.create(post).getId();
+        for (int i = 0; i < 5; i++) {
+            commentDao.create(new Comment(null, "Comment " + i, postId));
+        }
+
+        // When
+        List<Comment> first = commentDao.findPage(postId, null, 2);
+        Comment last = first.get(first.size() - 1);
+        List<Comment> rest = commentDao.findPage(postId, new KeysetCursor(last.getCreatedAt(), last.getId()), 10);
+
+        // Then
+        assertEquals(2, first.size());
+        assertEquals(3, rest.size());
+        assertEquals(Arrays.asList("Comment 0", "Comment 1", "Comment 2", "Comment 3", "Comment 4"),
+            Stream.concat(first.stream(), rest.stream()).map(Comment::getText).toList());
+        assertEquals(5, commentDao.getCommentsCount(postId));
+        assertEquals(0, commentDao.getCommentsCount(-1L));
+    }
+
+    @Test
+    void testRepairCommentsCount() {
+        // Given
+        Post post = new Post();
+        post.setTitle("Test Post");
+        post.setText("Test content");
+        post.setTags(Arrays.asList());
+        Post createdPost = postDao.create(post);
+        commentDao.create(new Comment(null, "Comment", createdPost.getId()));
+        jdbcTemplate.update("UPDATE posts SET comments_count = 7 WHERE id = ?", createdPost.getId());
+
+        // When
+        int repaired = postDao.repairCommentsCount();
+
+        // Then
+        assertEquals(1, repaired);
+        assertEquals(1, postDao.findById(createdPost.getId()).get().getCommentsCount());
+    }
+
     @Test
     void testGetTotalCount() {
         // Given
@@ -213,5 +961,26 @@ class PostDaoIntegrationTest {
         // Then
         assertEquals(3, count);
     }
+
+    @Test
+    void testTotalCountRefreshedAfterCreate() {
+        // Given
+        Post post1 = new Post();
+        post1.setTitle("Java Post");
+        post1.setText("Content");
+        post1.setTags(Arrays.asList("java"));
+        postDao.create(post1);
+        assertEquals(1, postDao.getTotalCount("#java"));
+
+        // When
+        Post post2 = new Post();
+        post2.setTitle("Another Java Post");
+        post2.setText("Content");
+        post2.setTags(Arrays.asList("java"));
+        postDao.create(post2);
+
+        // Then
+        assertEquals(2, postDao.getTotalCount("#java"));
+    }
 }
 
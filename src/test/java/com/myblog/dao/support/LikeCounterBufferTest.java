@@ -0,0 +1,122 @@
+package com.myblog.dao.support;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LikeCounterBufferTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PostSummaryTable postSummaryTable;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private LikeCounterBuffer buffer;
+
+    @BeforeEach
+    void setUp() {
+        buffer = new LikeCounterBuffer(jdbcTemplate, new PostCache(false, 0, 0), postSummaryTable,
+            transactionManager, true, 1000);
+    }
+
+    @Test
+    void testPersistedValueIsReadOncePerPost() {
+        // Given
+        AtomicInteger reads = new AtomicInteger();
+
+        // When
+        buffer.add(1L, 1, () -> {
+            reads.incrementAndGet();
+            return Optional.of(5);
+        });
+        Optional<Integer> likes = buffer.add(1L, 1, () -> {
+            reads.incrementAndGet();
+            return Optional.of(5);
+        });
+
+        // Then
+        assertEquals(7, likes.get());
+        assertEquals(1, reads.get());
+        // Значение из буфера важнее устаревшего значения из БД
+        assertEquals(7, buffer.merge(1L, 5));
+        assertTrue(buffer.add(2L, 1, Optional::empty).isEmpty());
+    }
+
+    @Test
+    void testConcurrentUnlikesDoNotGoBelowZero() throws Exception {
+        // Given
+        buffer.add(1L, 1, () -> Optional.of(0));
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+
+        // When
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                return buffer.add(1L, -1, () -> Optional.of(0));
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        // Then
+        assertEquals(0, buffer.merge(1L, 0));
+        assertEquals(1, buffer.add(1L, 1, () -> Optional.of(0)).get());
+    }
+
+    @Test
+    void testFlushedLikesAreCountedOnce() {
+        // Given
+        buffer.add(1L, 3, () -> Optional.of(2));
+
+        // When
+        int flushed = buffer.flush();
+
+        // Then: после сброса значение берётся из БД, буфер его не добавляет
+        assertEquals(1, flushed);
+        assertEquals(5, buffer.merge(1L, 5));
+        assertEquals(0L, buffer.stats().get("pendingLikes"));
+        verify(postSummaryTable).syncLikes(List.of(1L));
+    }
+
+    @Test
+    void testFailedFlushKeepsLikesPending() {
+        // Given
+        buffer.add(1L, 3, () -> Optional.of(2));
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenThrow(new IllegalStateException("down"));
+
+        // When
+        assertThrows(IllegalStateException.class, buffer::flush);
+
+        // Then
+        assertEquals(5, buffer.merge(1L, 2));
+        assertEquals(3L, buffer.stats().get("pendingLikes"));
+    }
+}
@@ -0,0 +1,78 @@
+package com.myblog.dao.support;
+
+import com.myblog.model.Post;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PostCacheTest {
+
+    private static Post post(long id, String text) {
+        return new Post(id, "Title", text, List.of("tag"), 0, 0);
+    }
+
+    @Test
+    void testGetReturnsCopyOfCachedPost() {
+        // Given
+        PostCache cache = new PostCache(true, 10_000, 60);
+        cache.put(post(1L, "Text"), cache.version());
+
+        // When
+        Optional<Post> first = cache.get(1L);
+        first.get().setText("Changed");
+        Optional<Post> second = cache.get(1L);
+
+        // Then
+        assertEquals("Text", second.get().getText());
+        assertTrue(cache.get(2L).isEmpty());
+        assertEquals(2L, cache.stats().get("hits"));
+        assertEquals(1L, cache.stats().get("misses"));
+    }
+
+    @Test
+    void testEvictsLeastRecentlyUsedWhenOverWeight() {
+        // Given: каждый пост весит около 64 + 5 + 100 + 3
+        PostCache cache = new PostCache(true, 400, 60);
+        cache.put(post(1L, "a".repeat(100)), cache.version());
+        cache.put(post(2L, "b".repeat(100)), cache.version());
+        cache.get(1L);
+
+        // When
+        cache.put(post(3L, "c".repeat(100)), cache.version());
+
+        // Then
+        assertTrue(cache.get(1L).isPresent());
+        assertTrue(cache.get(2L).isEmpty());
+        assertTrue(cache.get(3L).isPresent());
+        assertEquals(1L, cache.stats().get("evictions"));
+    }
+
+    @Test
+    void testInvalidateRejectsValuesReadBeforeIt() {
+        // Given
+        PostCache cache = new PostCache(true, 10_000, 60);
+        long versionAtRead = cache.version();
+
+        // When
+        cache.invalidate(1L);
+        cache.put(post(1L, "Stale"), versionAtRead);
+
+        // Then
+        assertTrue(cache.get(1L).isEmpty());
+    }
+
+    @Test
+    void testExpiredEntryIsMiss() {
+        // Given
+        PostCache cache = new PostCache(true, 10_000, 0);
+
+        // When
+        cache.put(post(1L, "Text"), cache.version());
+
+        // Then
+        assertTrue(cache.get(1L).isEmpty());
+    }
+}
@@ -0,0 +1,71 @@
+package com.myblog.dao.support;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PostIdBitmapTest {
+
+    @Test
+    void testAddRemoveContains() {
+        // Given
+        PostIdBitmap bitmap = new PostIdBitmap();
+
+        // When
+        bitmap.add(5);
+        bitmap.add(70_000);
+        bitmap.add(5);
+        bitmap.remove(70_000);
+
+        // Then
+        assertTrue(bitmap.contains(5));
+        assertFalse(bitmap.contains(70_000));
+        assertEquals(1, bitmap.cardinality());
+    }
+
+    @Test
+    void testIntersectionOfSparseAndDenseBlocks() {
+        // Given: плотный блок (битовая карта) и разреженный (массив)
+        PostIdBitmap even = new PostIdBitmap();
+        PostIdBitmap multiplesOfThree = new PostIdBitmap();
+        for (long id = 1; id <= 20_000; id++) {
+            if (id % 2 == 0) {
+                even.add(id);
+            }
+            if (id % 3 == 0) {
+                multiplesOfThree.add(id);
+            }
+        }
+
+        // When
+        PostIdBitmap both = even.and(multiplesOfThree);
+
+        // Then
+        assertEquals(20_000 / 6, both.cardinality());
+        assertTrue(both.contains(6));
+        assertFalse(both.contains(4));
+        assertEquals(List.of(19_998L, 19_992L), both.descending(0, 2));
+        assertEquals(List.of(19_986L), both.descending(2, 1));
+    }
+
+    @Test
+    void testDenseBlockShrinksBackAfterRemovals() {
+        // Given
+        PostIdBitmap bitmap = new PostIdBitmap();
+        for (long id = 0; id < 10_000; id++) {
+            bitmap.add(id);
+        }
+
+        // When
+        for (long id = 0; id < 9_990; id++) {
+            bitmap.remove(id);
+        }
+
+        // Then
+        assertEquals(10, bitmap.cardinality());
+        assertArrayEquals(new long[]{9_990, 9_991, 9_992, 9_993, 9_994, 9_995, 9_996, 9_997, 9_998, 9_999},
+            bitmap.toArray());
+    }
+}
@@ -0,0 +1,62 @@
+package com.myblog.dao.support;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TagDictionaryTest {
+
+    @Test
+    void testSharesOneNameInstancePerTag() {
+        // Given
+        TagDictionary dictionary = new TagDictionary(null);
+
+        // When
+        dictionary.register(1L, new String("java"));
+        dictionary.register(1L, new String("java"));
+
+        // Then
+        assertEquals(1L, dictionary.idOf("java"));
+        assertSame(dictionary.nameOf(1L), dictionary.nameOf(1L));
+        assertEquals(1, dictionary.size());
+    }
+
+    @Test
+    void testCanonicalNameReturnsDictionaryInstance() {
+        // Given
+        TagDictionary dictionary = new TagDictionary(null);
+        dictionary.register(1L, "java");
+
+        // When
+        String canonical = dictionary.canonicalName(new String("java"));
+        String unknown = new String("kotlin");
+
+        // Then
+        assertSame(dictionary.nameOf(1L), canonical);
+        assertSame(unknown, dictionary.canonicalName(unknown));
+    }
+
+    @Test
+    void testRegistersOnlyAfterCommit() {
+        TagDictionary dictionary = new TagDictionary(null);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            dictionary.register(1L, "committed");
+            dictionary.register(2L, "rolled-back");
+            assertNull(dictionary.idOf("committed"));
+
+            // Первая синхронизация — коммит, вторая — откат
+            var synchronizations = TransactionSynchronizationManager.getSynchronizations();
+            synchronizations.get(0).afterCommit();
+            synchronizations.get(1).afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertEquals(1L, dictionary.idOf("committed"));
+        assertNull(dictionary.idOf("rolled-back"));
+    }
+}
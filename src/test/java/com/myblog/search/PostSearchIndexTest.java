@@ -0,0 +1,53 @@
+package com.myblog.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PostSearchIndexTest {
+
+    private PostSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new PostSearchIndex(null, true);
+        index.index(1L, "Java Tutorial", "Learn the basics of the language");
+        index.index(2L, "Spring Framework", "Dependency injection in Java applications");
+        index.index(3L, "Рецепты", "Как приготовить борщ");
+    }
+
+    @Test
+    void testSearchMatchesTitleAndText() {
+        // When
+        List<Long> ids = index.search("java");
+
+        // Then
+        assertEquals(List.of(1L, 2L), ids);
+    }
+
+    @Test
+    void testSearchMatchesWordPrefix() {
+        assertEquals(List.of(2L), index.search("injec"));
+        assertEquals(List.of(3L), index.search("БОРЩ"));
+    }
+
+    @Test
+    void testSearchRequiresAllWords() {
+        assertEquals(List.of(2L), index.search("java spring"));
+        assertTrue(index.search("java борщ").isEmpty());
+    }
+
+    @Test
+    void testReindexAndDelete() {
+        // When
+        index.index(1L, "Kotlin Tutorial", "Nothing else");
+        index.delete(2L);
+
+        // Then
+        assertTrue(index.search("java").isEmpty());
+        assertEquals(List.of(1L), index.search("kotlin"));
+    }
+}
@@ -1,6 +1,8 @@
 package com.myblog.service;
 
 import com.myblog.dao.CommentDao;
+import com.myblog.dao.support.KeysetCursor;
+import com.myblog.dto.CommentPageResponse;
 import com.myblog.dto.CreateCommentRequest;
 import com.myblog.dto.UpdateCommentRequest;
 import com.myblog.model.Comment;
@@ -12,12 +14,15 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -56,6 +61,51 @@ class CommentServiceTest {
         verify(commentDao).findByPostId(1L);
     }
 
+    @Test
+    void testGetCommentsPage() {
+        // Given
+        LocalDateTime createdAt = LocalDateTime.of(2024, 1, 1, 12, 0);
+        Comment second = new Comment(2L, "Second", 1L);
+        testComment.setCreatedAt(createdAt);
+        second.setCreatedAt(createdAt);
+        Comment third = new Comment(3L, "Third", 1L);
+        when(commentDao.findPage(1L, null, 3)).thenReturn(Arrays.asList(testComment, second, third));
+        when(commentDao.getCommentsCount(1L)).thenReturn(3);
+
+        // When
+        CommentPageResponse result = commentService.getCommentsPage(1L, null, 2);
+
+        // Then
+        assertEquals(2, result.getComments().size());
+        assertTrue(result.isHasNext());
+        assertEquals(3, result.getTotalCount());
+        KeysetCursor next = KeysetCursor.decode(result.getNextCursor());
+        assertEquals(createdAt, next.getCreatedAt());
+        assertEquals(2L, next.getId());
+    }
+
+    @Test
+    void testGetCommentsPageLastPage() {
+        // Given
+        when(commentDao.findPage(eq(1L), any(KeysetCursor.class), eq(2))).thenReturn(Arrays.asList(testComment));
+        String cursor = new KeysetCursor(LocalDateTime.of(2024, 1, 1, 12, 0), 5L).encode();
+
+        // When
+        CommentPageResponse result = commentService.getCommentsPage(1L, cursor, 1);
+
+        // Then
+        assertEquals(1, result.getComments().size());
+        assertFalse(result.isHasNext());
+        assertNull(result.getNextCursor());
+    }
+
+    @Test
+    void testGetCommentsPageRejectsInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> commentService.getCommentsPage(1L, null, 0));
+        assertThrows(IllegalArgumentException.class, () -> commentService.getCommentsPage(1L, "not a cursor", 10));
+        verify(commentDao, never()).findPage(any(), isNull(), anyInt());
+    }
+
     @Test
     void testGetCommentById() {
         // Given
@@ -0,0 +1,160 @@
+package com.myblog.service;
+
+import com.myblog.dao.PostDao;
+import com.myblog.dto.ImportReport;
+import com.myblog.model.Post;
+import com.myblog.service.impl.PostImportServiceImpl;
+import com.myblog.storage.ImageUploader;
+import com.myblog.storage.StoredImage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PostImportServiceTest {
+
+    @Mock
+    private PostDao postDao;
+
+    @Mock
+    private ImageUploader imageUploader;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private PostImportServiceImpl importService;
+
+    private final List<String> written = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        importService = new PostImportServiceImpl(postDao, imageUploader, transactionManager, 2, 2, "");
+    }
+
+    @Test
+    void testImportKeepsOrderAndReportsBadLines() throws Exception {
+        // Given
+        doAnswer(invocation -> {
+            List<Post> posts = invocation.getArgument(0);
+            for (Post post : posts) {
+                written.add(post.getTitle() + " " + post.getTags() + " " + post.getLikesCount());
+            }
+            return null;
+        }).when(postDao).createAll(any());
+        String ndjson = String.join("\n",
+            "{\"title\":\"First\",\"text\":\"a\",\"tags\":[\"java\"],\"likes\":3}",
+            "{not json",
+            "",
+            "{\"text\":\"no title\"}",
+            "{\"title\":\"Second\",\"text\":\"b\",\"unknown\":1}",
+            "{\"title\":\"Third\",\"text\":\"c\",\"likesCount\":7}");
+
+        // When
+        ImportReport report = importService.importPosts(
+            new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)));
+
+        // Then
+        assertEquals(Arrays.asList("First [java] 3", "Second [] 0", "Third [] 7"), written);
+        assertEquals(3, report.getImported());
+        assertEquals(2, report.getFailed());
+        assertTrue(report.getErrors().get(0).startsWith("line 2:"));
+        assertTrue(report.getErrors().get(1).startsWith("line 4:"));
+        // Пачка из пустой строки и строки без заголовка в БД не пишется
+        verify(transactionManager, times(2)).commit(any());
+    }
+
+    @Test
+    void testFailedChunkDoesNotStopImport() throws Exception {
+        // Given
+        doThrow(new IllegalStateException("constraint violated")).doNothing().when(postDao).createAll(any());
+        String ndjson = "{\"title\":\"A\"}\n{\"title\":\"B\"}\n{\"title\":\"C\"}\n";
+
+        // When
+        ImportReport report = importService.importPosts(
+            new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)));
+
+        // Then
+        assertEquals(1, report.getImported());
+        assertEquals(2, report.getFailed());
+        assertEquals("lines from 1: constraint violated", report.getErrors().get(0));
+        verify(transactionManager).rollback(any());
+    }
+
+    @Test
+    void testImagePathMustStayInsideImportDirectory() throws Exception {
+        // Given
+        importService = new PostImportServiceImpl(postDao, imageUploader, transactionManager, 2, 1, "/tmp/import");
+        String ndjson = "{\"title\":\"A\",\"image\":\"../../etc/passwd\"}";
+
+        // When
+        ImportReport report = importService.importPosts(
+            new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)));
+
+        // Then
+        assertEquals(0, report.getImported());
+        assertEquals(1, report.getFailed());
+        assertTrue(report.getErrors().get(0).contains("outside import.image-dir"));
+        verifyNoInteractions(imageUploader);
+        verify(postDao, never()).createAll(any());
+    }
+
+    @Test
+    void testFailedChunkDiscardsStoredImages(@TempDir Path imageDirectory) throws Exception {
+        // Given
+        Files.write(imageDirectory.resolve("a.png"), new byte[] {1});
+        importService = new PostImportServiceImpl(postDao, imageUploader, transactionManager, 2, 1,
+            imageDirectory.toString());
+        StoredImage stored = new StoredImage("a".repeat(64), 1, "image/png", true);
+        when(imageUploader.upload(any())).thenReturn(stored);
+        doThrow(new IllegalStateException("constraint violated")).when(postDao).createAll(any());
+        String ndjson = "{\"title\":\"A\",\"image\":\"a.png\"}\n{\"title\":\"B\",\"image\":\"missing.png\"}";
+
+        // When
+        ImportReport report = importService.importPosts(
+            new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)));
+
+        // Then
+        assertEquals(0, report.getImported());
+        assertEquals(2, report.getFailed());
+        assertTrue(report.getErrors().get(0).startsWith("line 2: image file not found"));
+        verify(imageUploader, times(1)).upload(any());
+        verify(imageUploader).discard(stored);
+    }
+
+    @Test
+    void testFailedChunkKeepsImageReferencedElsewhere(@TempDir Path imageDirectory) throws Exception {
+        // Given: пока пачка откатывалась, те же байты закоммитила другая загрузка
+        Files.write(imageDirectory.resolve("a.png"), new byte[] {1});
+        importService = new PostImportServiceImpl(postDao, imageUploader, transactionManager, 2, 1,
+            imageDirectory.toString());
+        StoredImage stored = new StoredImage("a".repeat(64), 1, "image/png", true);
+        when(imageUploader.upload(any())).thenReturn(stored);
+        doThrow(new IllegalStateException("constraint violated")).when(postDao).createAll(any());
+        when(postDao.isImageReferenced(stored.getHash())).thenReturn(true);
+        String ndjson = "{\"title\":\"A\",\"image\":\"a.png\"}";
+
+        // When
+        ImportReport report = importService.importPosts(
+            new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)));
+
+        // Then
+        assertEquals(1, report.getFailed());
+        verify(imageUploader, never()).discard(any());
+    }
+}
@@ -1,21 +1,36 @@
 package com.myblog.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.myblog.dao.FeedRowHandler;
 import com.myblog.dao.PostDao;
+import com.myblog.dao.PostExportHandler;
+import com.myblog.dao.support.KeysetCursor;
 import com.myblog.dto.CreatePostRequest;
+import com.myblog.dto.PostBatchOperation;
+import com.myblog.dto.PostBatchResponse;
+import com.myblog.dto.PostBatchResult;
 import com.myblog.dto.PostListResponse;
+import com.myblog.dto.PostsByIdsResponse;
 import com.myblog.dto.UpdatePostRequest;
+import com.myblog.model.Comment;
 import com.myblog.model.Post;
 import com.myblog.service.impl.PostServiceImpl;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -65,6 +80,136 @@ class PostServiceTest {
         verify(postDao).getTotalCount("");
     }
 
+    @Test
+    void testGetPostsWithoutCount() {
+        // Given
+        Post secondPost = new Post();
+        secondPost.setId(2L);
+        when(postDao.findSlice("", 1, 2))
+            .thenReturn(new ArrayList<>(Arrays.asList(testPost, secondPost)));
+
+        // When
+        PostListResponse response = postService.getPostsWithoutCount("", 2, 1);
+
+        // Then
+        assertEquals(1, response.getPosts().size());
+        assertTrue(response.isHasPrev());
+        assertTrue(response.isHasNext());
+        assertEquals(PostListResponse.UNKNOWN_LAST_PAGE, response.getLastPage());
+        verify(postDao, never()).getTotalCount(anyString());
+    }
+
+    @Test
+    void testGetPostsAfterReturnsNextCursor() {
+        // Given
+        Post secondPost = new Post();
+        secondPost.setId(2L);
+        secondPost.setCreatedAt(LocalDateTime.of(2024, 1, 1, 12, 0));
+        testPost.setCreatedAt(LocalDateTime.of(2024, 1, 2, 12, 0));
+        Post thirdPost = new Post();
+        thirdPost.setId(3L);
+        when(postDao.findAfter(eq(""), isNull(), eq(3)))
+            .thenReturn(new ArrayList<>(Arrays.asList(testPost, secondPost, thirdPost)));
+
+        // When
+        PostListResponse response = postService.getPostsAfter("", "", 2);
+
+        // Then
+        assertEquals(2, response.getPosts().size());
+        assertFalse(response.isHasPrev());
+        assertTrue(response.isHasNext());
+        assertEquals(PostListResponse.UNKNOWN_LAST_PAGE, response.getLastPage());
+
+        KeysetCursor cursor = KeysetCursor.decode(response.getNextCursor());
+        assertEquals(2L, cursor.getId());
+        assertEquals(secondPost.getCreatedAt(), cursor.getCreatedAt());
+        verify(postDao, never()).getTotalCount(anyString());
+    }
+
+    @Test
+    void testWritePostsMatchesPostListResponse() throws Exception {
+        // Given
+        doAnswer(invocation -> {
+            FeedRowHandler handler = invocation.getArgument(3);
+            handler.handle(1L, "Test Post", "Test content", new Object[]{"tag1", "tag2"}, 3, 1);
+            handler.handle(2L, "Second", "Text", new Object[0], 0, 0);
+            handler.handle(3L, "Extra row", "Text", new Object[0], 0, 0);
+            return null;
+        }).when(postDao).streamSlice(eq(""), eq(2), eq(3), any());
+        testPost.setLikesCount(3);
+        testPost.setCommentsCount(1);
+        Post secondPost = new Post(2L, "Second", "Text", new ArrayList<>(), 0, 0);
+
+        // When
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        postService.writePosts("", 2, 2, false, out);
+
+        // Then
+        PostListResponse expected = new PostListResponse(Arrays.asList(testPost, secondPost), true, true,
+            PostListResponse.UNKNOWN_LAST_PAGE);
+        assertEquals(new ObjectMapper().writeValueAsString(expected), out.toString(StandardCharsets.UTF_8));
+        verify(postDao, never()).getTotalCount(anyString());
+    }
+
+    @Test
+    void testExportPostsWritesOneLinePerPost() throws Exception {
+        // Given
+        LocalDateTime createdAt = LocalDateTime.of(2024, 1, 1, 12, 0);
+        testPost.setCreatedAt(createdAt);
+        testPost.setUpdatedAt(createdAt);
+        Comment comment = new Comment(7L, "Nice", 1L);
+        comment.setCreatedAt(createdAt);
+        comment.setUpdatedAt(createdAt);
+        doAnswer(invocation -> {
+            PostExportHandler handler = invocation.getArgument(1);
+            handler.handle(testPost, List.of(comment));
+            handler.handle(testPost, List.of());
+            return null;
+        }).when(postDao).exportAfter(eq(5L), any());
+
+        // When
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        postService.exportPosts(5L, out);
+
+        // Then
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        assertEquals("{\"id\":1,\"title\":\"Test Post\",\"text\":\"Test content\",\"tags\":[\"tag1\",\"tag2\"],"
+            + "\"likesCount\":0,\"commentsCount\":0,\"createdAt\":\"2024-01-01T12:00:00\","
+            + "\"updatedAt\":\"2024-01-01T12:00:00\",\"comments\":[{\"id\":7,\"text\":\"Nice\","
+            + "\"createdAt\":\"2024-01-01T12:00:00\",\"updatedAt\":\"2024-01-01T12:00:00\"}]}", lines[0]);
+        assertTrue(lines[1].endsWith("\"comments\":[]}"));
+    }
+
+    @Test
+    void testGetPostsByIdsReportsMissingIds() {
+        // Given
+        Post thirdPost = new Post(3L, "Third", "Text", null, 0, 0);
+        when(postDao.findByIds(any())).thenReturn(Arrays.asList(thirdPost, testPost));
+
+        // When
+        PostsByIdsResponse response = postService.getPostsByIds(Arrays.asList(3L, 2L, 1L, 3L));
+
+        // Then
+        assertEquals(2, response.getPosts().size());
+        assertEquals(List.of(2L), response.getMissingIds());
+        verify(postDao).findByIds(argThat(ids -> new ArrayList<>(ids).equals(Arrays.asList(3L, 2L, 1L))));
+    }
+
+    @Test
+    void testGetPostsByIdsRejectsTooManyIds() {
+        // Given
+        List<Long> ids = new ArrayList<>();
+        for (long id = 1; id <= 101; id++) {
+            ids.add(id);
+        }
+
+        // When & Then
+        assertThrows(IllegalArgumentException.class, () -> postService.getPostsByIds(ids));
+        assertThrows(IllegalArgumentException.class, () -> postService.getPostsByIds(List.of()));
+        verify(postDao, never()).findByIds(any());
+    }
+
     @Test
     void testGetPostById() {
         // Given
@@ -111,7 +256,7 @@ class PostServiceTest {
         request.setTags(Arrays.asList("tag1"));
         
         when(postDao.findById(1L)).thenReturn(Optional.of(testPost));
-        when(postDao.update(any(Post.class))).thenReturn(testPost);
+        when(postDao.update(any(Post.class))).thenReturn(Optional.of(testPost));
 
         // When
         Post result = postService.updatePost(1L, request);
@@ -143,6 +288,21 @@ class PostServiceTest {
         verify(postDao, never()).update(any(Post.class));
     }
 
+    @Test
+    void testUpdatePostDeletedConcurrently() {
+        // Given: пост удалён между проверкой и UPDATE
+        UpdatePostRequest request = new UpdatePostRequest();
+        request.setTitle("Updated Post");
+        request.setText("Updated content");
+        request.setTags(Arrays.asList("tag1"));
+
+        when(postDao.findById(1L)).thenReturn(Optional.of(testPost));
+        when(postDao.update(any(Post.class))).thenReturn(Optional.empty());
+
+        // When & Then
+        assertThrows(IllegalArgumentException.class, () -> postService.updatePost(1L, request));
+    }
+
     @Test
     void testDeletePost() {
         // When
@@ -152,17 +312,70 @@ class PostServiceTest {
         verify(postDao).delete(1L);
     }
 
+    @Test
+    void testApplyBatchReturnsResultPerOperation() {
+        // Given
+        doAnswer(invocation -> {
+            List<Post> posts = invocation.getArgument(0);
+            posts.get(0).setId(10L);
+            return null;
+        }).when(postDao).createAll(any());
+        when(postDao.updateAll(any())).thenAnswer(invocation -> {
+            List<Post> posts = invocation.getArgument(0);
+            return posts.stream().filter(post -> post.getId() == 1L).toList();
+        });
+        when(postDao.deleteAll(any())).thenReturn(Set.of(3L));
+
+        // When
+        PostBatchResponse response = postService.applyBatch(Arrays.asList(
+            new PostBatchOperation("delete", 3L, null, null, null),
+            new PostBatchOperation("update", 1L, "Updated", "Text", null),
+            new PostBatchOperation("create", null, "New", "Text", Arrays.asList("tag")),
+            new PostBatchOperation("update", 2L, "Missing", "Text", null),
+            new PostBatchOperation("create", null, " ", "No title", null),
+            new PostBatchOperation("publish", 1L, null, null, null)));
+
+        // Then
+        List<PostBatchResult> results = response.getResults();
+        assertEquals(Arrays.asList(204, 200, 201, 404, 400, 400),
+            results.stream().map(PostBatchResult::getStatus).toList());
+        assertEquals(10L, results.get(2).getId());
+        assertEquals("Updated", results.get(1).getPost().getTitle());
+        assertEquals("title is required", results.get(4).getError());
+        verify(postDao).createAll(argThat(posts -> posts.size() == 1));
+        verify(postDao).deleteAll(List.of(3L));
+    }
+
+    @Test
+    void testApplyBatchKeepsRequestOrderForSameId() {
+        // Given
+        when(postDao.deleteAll(List.of(5L, 5L))).thenReturn(Set.of(5L));
+        when(postDao.updateAll(any())).thenReturn(List.of());
+
+        // When
+        PostBatchResponse response = postService.applyBatch(Arrays.asList(
+            new PostBatchOperation("delete", 5L, null, null, null),
+            new PostBatchOperation("delete", 5L, null, null, null),
+            new PostBatchOperation("update", 5L, "Updated", "Text", null)));
+
+        // Then
+        assertEquals(Arrays.asList(204, 404, 404),
+            response.getResults().stream().map(PostBatchResult::getStatus).toList());
+        InOrder inOrder = inOrder(postDao);
+        inOrder.verify(postDao).deleteAll(List.of(5L, 5L));
+        inOrder.verify(postDao).updateAll(argThat(posts -> posts.size() == 1 && posts.get(0).getId() == 5L));
+    }
+
+    @Test
+    void testApplyBatchRejectsEmptyBatch() {
+        assertThrows(IllegalArgumentException.class, () -> postService.applyBatch(List.of()));
+        verifyNoInteractions(postDao);
+    }
+
     @Test
     void testIncrementLikes() {
         // Given
-        Post likedPost = new Post();
-        likedPost.setId(1L);
-        likedPost.setTitle("Test Post");
-        likedPost.setText("Test content");
-        likedPost.setLikesCount(5);
-        likedPost.setCommentsCount(0);
-        
-        when(postDao.findById(1L)).thenReturn(Optional.of(likedPost));
+        when(postDao.incrementLikes(1L)).thenReturn(5);
 
         // When
         int likesCount = postService.incrementLikes(1L);
@@ -171,7 +384,20 @@ class PostServiceTest {
         assertEquals(5, likesCount);
         
         verify(postDao).incrementLikes(1L);
-        verify(postDao).findById(1L);
+        verify(postDao, never()).findById(1L);
+    }
+
+    @Test
+    void testDecrementLikes() {
+        // Given
+        when(postDao.decrementLikes(1L)).thenReturn(4);
+
+        // When
+        int likesCount = postService.decrementLikes(1L);
+
+        // Then
+        assertEquals(4, likesCount);
+        verify(postDao).decrementLikes(1L);
     }
 }
 
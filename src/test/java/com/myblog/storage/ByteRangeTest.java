@@ -0,0 +1,37 @@
+package com.myblog.storage;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ByteRangeTest {
+
+    @Test
+    void testParsesSingleRanges() {
+        ByteRange closed = ByteRange.parse("bytes=0-99", 1000);
+        ByteRange open = ByteRange.parse("bytes=900-", 1000);
+        ByteRange suffix = ByteRange.parse("bytes=-100", 1000);
+        ByteRange clipped = ByteRange.parse("bytes=950-2000", 1000);
+
+        assertEquals(0, closed.getStart());
+        assertEquals(100, closed.length());
+        assertEquals(999, open.getEnd());
+        assertEquals(900, suffix.getStart());
+        assertEquals(999, clipped.getEnd());
+    }
+
+    @Test
+    void testIgnoresMissingOrUnsupportedHeader() {
+        assertNull(ByteRange.parse(null, 1000));
+        assertNull(ByteRange.parse("items=0-1", 1000));
+        assertNull(ByteRange.parse("bytes=0-1,5-6", 1000));
+        assertNull(ByteRange.parse("bytes=abc-", 1000));
+        assertNull(ByteRange.parse("bytes=10-5", 1000));
+    }
+
+    @Test
+    void testRejectsRangeOutsideContent() {
+        assertThrows(IllegalArgumentException.class, () -> ByteRange.parse("bytes=1000-", 1000));
+        assertThrows(IllegalArgumentException.class, () -> ByteRange.parse("bytes=-0", 1000));
+    }
+}
@@ -0,0 +1,82 @@
+package com.myblog.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileSystemImageStorageTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testStoresContentUnderItsHashOnce() throws Exception {
+        // Given
+        FileSystemImageStorage storage = new FileSystemImageStorage(directory.toString());
+        byte[] data = "image bytes".getBytes(StandardCharsets.UTF_8);
+
+        // When
+        StoredImage first = storage.store(new ByteArrayInputStream(data));
+        StoredImage second = storage.store(new ByteArrayInputStream(data));
+
+        // Then
+        assertEquals(first.getHash(), second.getHash());
+        assertEquals(64, first.getHash().length());
+        assertEquals(data.length, first.getSize());
+        try (Stream<Path> files = Files.walk(directory)) {
+            assertEquals(1, files.filter(Files::isRegularFile).count());
+        }
+    }
+
+    @Test
+    void testDeletesOnlyWhatItCreated() throws Exception {
+        // Given
+        FileSystemImageStorage storage = new FileSystemImageStorage(directory.toString());
+        byte[] data = "image bytes".getBytes(StandardCharsets.UTF_8);
+        StoredImage first = storage.store(new ByteArrayInputStream(data));
+        StoredImage second = storage.store(new ByteArrayInputStream(data));
+
+        // When
+        storage.delete(first.getHash());
+
+        // Then
+        assertTrue(first.isCreated());
+        assertFalse(second.isCreated());
+        assertTrue(storage.open(first.getHash()).isEmpty());
+    }
+
+    @Test
+    void testTransfersRequestedRange() throws Exception {
+        // Given
+        FileSystemImageStorage storage = new FileSystemImageStorage(directory.toString());
+        StoredImage stored = storage.store(new ByteArrayInputStream("0123456789".getBytes(StandardCharsets.UTF_8)));
+
+        // When
+        Optional<ImageContent> content = storage.open(stored.getHash());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        content.get().transferTo(2, 5, Channels.newChannel(out));
+
+        // Then
+        assertEquals(10, content.get().size());
+        assertEquals("23456", out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testOpenRejectsUnknownOrMalformedHash() throws Exception {
+        FileSystemImageStorage storage = new FileSystemImageStorage(directory.toString());
+
+        assertTrue(storage.open("0".repeat(64)).isEmpty());
+        assertTrue(storage.open("../../etc/passwd").isEmpty());
+        assertTrue(storage.open(null).isEmpty());
+    }
+}
@@ -0,0 +1,64 @@
+package com.myblog.storage;
+
+import com.myblog.exception.ImageTooLargeException;
+import com.myblog.exception.UnsupportedImageTypeException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ImageUploaderTest {
+
+    private static final byte[] PNG_HEADER = {(byte) 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A};
+
+    @TempDir
+    Path directory;
+
+    private static byte[] png(int size) {
+        byte[] data = Arrays.copyOf(PNG_HEADER, size);
+        Arrays.fill(data, PNG_HEADER.length, size, (byte) 7);
+        return data;
+    }
+
+    @Test
+    void testDetectsFormatWhileStoring() throws Exception {
+        // Given
+        ImageUploader uploader = new ImageUploader(new FileSystemImageStorage(directory.toString()), 1024);
+
+        // When
+        StoredImage stored = uploader.upload(new ByteArrayInputStream(png(100)));
+
+        // Then
+        assertEquals("image/png", stored.getContentType());
+        assertEquals(100, stored.getSize());
+    }
+
+    @Test
+    void testRejectsUnknownFormat() throws Exception {
+        ImageUploader uploader = new ImageUploader(new FileSystemImageStorage(directory.toString()), 1024);
+
+        assertThrows(UnsupportedImageTypeException.class,
+            () -> uploader.upload(new ByteArrayInputStream("<svg onload=alert(1)>".getBytes())));
+    }
+
+    @Test
+    void testRejectsOversizedImageWithoutKeepingFile() throws Exception {
+        // Given
+        ImageUploader uploader = new ImageUploader(new FileSystemImageStorage(directory.toString()), 1024);
+
+        // When
+        assertThrows(ImageTooLargeException.class,
+            () -> uploader.upload(new ByteArrayInputStream(png(1025))));
+
+        // Then
+        try (Stream<Path> files = Files.walk(directory)) {
+            assertEquals(0, files.filter(Files::isRegularFile).count());
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package com.myblog.storage;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ImageVariantsTest {
+
+    @TempDir
+    Path directory;
+
+    private ImageVariants variants;
+
+    @AfterEach
+    void tearDown() {
+        if (variants != null) {
+            variants.destroy();
+        }
+    }
+
+    private static ImageContent png(int width, int height) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB), "png", out);
+        return ImageContent.ofBytes(out.toByteArray());
+    }
+
+    private static ImageVariants.Original source(ImageContent content) {
+        return () -> Optional.of(content);
+    }
+
+    private static BufferedImage read(Optional<ImageVariant> variant) throws IOException {
+        return read(variant.orElseThrow());
+    }
+
+    private static BufferedImage read(ImageVariant variant) throws IOException {
+        try (InputStream in = variant.getContent().openStream()) {
+            return ImageIO.read(in);
+        }
+    }
+
+    @Test
+    void testResizesIntoBoxKeepingAspectRatio() throws Exception {
+        // Given
+        variants = new ImageVariants(directory.toString(), 1_000_000, 2048, 2, 8, 10_000, 0, 50_000_000);
+
+        // When
+        ImageVariant variant = variants.variant("a".repeat(64), source(png(200, 100)), "image/png", 50, 50).orElseThrow();
+
+        // Then
+        BufferedImage resized = read(variant);
+        assertEquals(50, resized.getWidth());
+        assertEquals(25, resized.getHeight());
+        assertEquals("image/png", variant.getContentType());
+    }
+
+    @Test
+    void testReturnsOriginalWhenAlreadySmaller() throws Exception {
+        // Given
+        variants = new ImageVariants(directory.toString(), 1_000_000, 2048, 2, 8, 10_000, 0, 50_000_000);
+        ImageContent original = png(40, 20);
+
+        // When
+        ImageVariant variant = variants.variant("a".repeat(64), source(original), "image/png", 100, null).orElseThrow();
+
+        // Then
+        assertSame(original, variant.getContent());
+        assertEquals(0L, variants.stats().get("generated"));
+    }
+
+    @Test
+    void testConcurrentRequestsShareOneResize() throws Exception {
+        // Given
+        variants = new ImageVariants(directory.toString(), 1_000_000, 2048, 2, 8, 10_000, 0, 50_000_000);
+        ImageContent original = png(1000, 1000);
+        ExecutorService clients = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+
+        // When
+        List<Future<Optional<ImageVariant>>> results = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            results.add(clients.submit(() -> {
+                start.await();
+                return variants.variant("b".repeat(64), source(original), "image/png", 100, 100);
+            }));
+        }
+        start.countDown();
+        for (Future<Optional<ImageVariant>> result : results) {
+            assertEquals(100, read(result.get()).getWidth());
+        }
+        clients.shutdown();
+
+        // Then
+        assertEquals(1L, variants.stats().get("generated"));
+    }
+
+    @Test
+    void testKeepsRecentlyServedVariantOverSizeCap() throws Exception {
+        // Given
+        variants = new ImageVariants(directory.toString(), 1, 2048, 1, 8, 10_000, 60_000, 50_000_000);
+        ImageContent original = png(400, 400);
+        Optional<ImageVariant> served = variants.variant("d".repeat(64), source(original), "image/png", 300, 300);
+
+        // When
+        variants.variant("d".repeat(64), source(original), "image/png", 200, 200);
+
+        // Then: первая копия ещё может читаться ответом
+        assertEquals(2L, variants.stats().get("files"));
+        assertEquals(0L, variants.stats().get("evictions"));
+        assertEquals(300, read(served).getWidth());
+    }
+
+    @Test
+    void testEvictsLeastRecentlyUsedOverSizeCap() throws Exception {
+        // Given
+        variants = new ImageVariants(directory.toString(), 1_000_000, 2048, 1, 8, 10_000, 0, 50_000_000);
+        ImageContent original = png(400, 400);
+        variants.variant("c".repeat(64), source(original), "image/png", 300, 300);
+        long oneVariant = variants.stats().get("bytes");
+        variants.destroy();
+        variants = new ImageVariants(directory.toString(), oneVariant + 1, 2048, 1, 8, 10_000, 0, 50_000_000);
+
+        // When
+        variants.variant("c".repeat(64), source(original), "image/png", 200, 200);
+
+        // Then
+        assertEquals(1L, variants.stats().get("files"));
+        assertEquals(1L, variants.stats().get("evictions"));
+    }
+
+    @Test
+    void testCachedVariantDoesNotOpenOriginal() throws Exception {
+        // Given
+        variants = new ImageVariants(directory.toString(), 1_000_000, 2048, 1, 8, 10_000, 0, 50_000_000);
+        variants.variant("e".repeat(64), source(png(400, 400)), "image/png", 100, 100);
+
+        // When
+        Optional<ImageVariant> cached = variants.variant("e".repeat(64), () -> {
+            throw new AssertionError("original must not be opened");
+        }, "image/png", 100, 100);
+
+        // Then
+        assertEquals(100, read(cached).getWidth());
+        assertEquals(1L, variants.stats().get("hits"));
+    }
+
+    @Test
+    void testRejectsSourceOverPixelBudgetBeforeDecoding() throws Exception {
+        // Given
+        variants = new ImageVariants(directory.toString(), 1_000_000, 2048, 1, 8, 10_000, 0, 100_000);
+
+        // When / Then
+        assertThrows(IllegalArgumentException.class,
+            () -> variants.variant("f".repeat(64), source(png(1000, 1000)), "image/png", 100, 100));
+        assertEquals(0L, variants.stats().get("generated"));
+    }
+
+    @Test
+    void testSubsamplesLargeSourceToTargetSize() throws Exception {
+        // Given
+        variants = new ImageVariants(directory.toString(), 1_000_000, 2048, 1, 8, 10_000, 0, 50_000_000);
+
+        // When
+        Optional<ImageVariant> variant = variants.variant("0".repeat(64), source(png(2000, 1000)), "image/png", 100, null);
+
+        // Then
+        BufferedImage resized = read(variant);
+        assertEquals(100, resized.getWidth());
+        assertEquals(50, resized.getHeight());
+    }
+}